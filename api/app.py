@@ -55,6 +55,35 @@ def update_agent():
     agents_data[agent_id] = data
     return jsonify({"status": "success"}), 200
 
+@app.route('/update/batch', methods=['POST'])
+def update_agents_batch():
+    """Update many agent states at once (one request per simulation tick).
+
+    Body: {"tick": n, "delta": bool, "agents": [{"id": ..., ...}], "removed": [ids]}
+    In delta mode an agent entry only holds the fields that changed and is merged
+    into the stored state.
+    """
+    data = request.json
+    if not data:
+        return jsonify({"status": "error", "message": "Missing body"}), 400
+
+    now = time.time()
+    delta = data.get('delta', False)
+    updated = 0
+    for state in data.get('agents', []):
+        agent_id = state.get('id')
+        if agent_id is None:
+            continue
+        if delta and agent_id in agents_data:
+            agents_data[agent_id].update(state)
+        else:
+            agents_data[agent_id] = state
+        agents_data[agent_id]['last_seen'] = now
+        updated += 1
+    for agent_id in data.get('removed', []):
+        agents_data.pop(agent_id, None)
+    return jsonify({"status": "success", "updated": updated}), 200
+
 @app.route('/debug', methods=['POST'])
 def add_debug_message():
     """Add a debug message from an agent."""
@@ -81,6 +110,40 @@ def add_debug_message():
     
     return jsonify({"status": "success"}), 200
 
+@app.route('/debug/batch', methods=['POST'])
+def add_debug_messages_batch():
+    """Add many debug messages at once (sent by the Java DebugLogger).
+
+    Body: {"messages": [{"timestamp": ..., "agent_id": ..., "message": ..., ...}]}
+    The timestamp is when the message was logged, not when the batch arrived.
+    """
+    data = request.json
+    if not data:
+        return jsonify({"status": "error", "message": "Missing body"}), 400
+
+    now = time.time()
+    added = 0
+    for msg in data.get('messages', []):
+        if 'agent_id' not in msg or 'message' not in msg:
+            continue
+        debug_messages.append({
+            "timestamp": msg.get('timestamp', now),
+            "agent_id": msg['agent_id'],
+            "agent_type": msg.get('agent_type', 'unknown'),
+            "message": msg['message'],
+            "level": msg.get('level', 'INFO'),
+            "container": msg.get('container', 'unknown'),
+            "status": msg.get('status', ''),
+            "details": msg.get('details', {})
+        })
+        added += 1
+
+    # Keep only last MAX_DEBUG_MESSAGES
+    if len(debug_messages) > MAX_DEBUG_MESSAGES:
+        del debug_messages[:-MAX_DEBUG_MESSAGES]
+
+    return jsonify({"status": "success", "added": added}), 200
+
 @app.route('/debug', methods=['GET'])
 def get_debug_messages():
     """Get all debug messages (optionally filtered)."""
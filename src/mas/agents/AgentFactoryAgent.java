@@ -15,6 +15,7 @@ import jade.lang.acl.MessageTemplate;
 import jade.core.behaviours.CyclicBehaviour;
 import mas.core.BaseAgent;
 import mas.core.DebugLogger;
+import mas.core.DeterministicRun;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -50,6 +51,9 @@ public class AgentFactoryAgent extends Agent {
         System.out.println("Ready to create agents and containers on request");
         DebugLogger.success(getLocalName(), "factory", "Main", "Agent factory ready to create system");
         
+        // Agents created while the simulation runs are inputs of a deterministic run (journaled and replayed)
+        DeterministicRun.getInstance().registerHandler(CREATE_AGENT, this::createAgentFromInput);
+        
         // Add behavior to handle requests
         addBehaviour(new RequestHandlerBehaviour());
         
@@ -93,9 +97,12 @@ public class AgentFactoryAgent extends Agent {
                             double y = Double.parseDouble(parts[4]);
                             String containerName = parts[5];
                             
-                            boolean success = createAgent(agentType, agentName, x, y, containerName);
-                            
-                            if (success) {
+                            if (DeterministicRun.getInstance().isEnabled()) {
+                                // Applied at the next tick boundary, see DeterministicRun.submit
+                                boolean accepted = DeterministicRun.getInstance().submit(CREATE_AGENT, content.substring(CREATE_AGENT.length() + 1));
+                                reply.setPerformative(accepted ? ACLMessage.INFORM : ACLMessage.FAILURE);
+                                reply.setContent(accepted ? "Agent " + agentName + " scheduled for the next tick" : "Agent creation ignored during replay");
+                            } else if (createAgent(agentType, agentName, x, y, containerName)) {
                                 reply.setPerformative(ACLMessage.INFORM);
                                 reply.setContent("Agent " + agentName + " of type " + agentType + " created successfully at (" + x + ", " + y + ")");
                             } else {
@@ -155,6 +162,22 @@ public class AgentFactoryAgent extends Agent {
         }
     }
     
+    /**
+     * Apply a CREATE_AGENT input (agentType:agentName:x:y:containerName)
+     */
+    private void createAgentFromInput(String args) {
+        String[] parts = args.split(":");
+        if (parts.length < 5) {
+            System.err.println("AgentFactoryAgent: Invalid CREATE_AGENT input: " + args);
+            return;
+        }
+        try {
+            createAgent(parts[0], parts[1], Double.parseDouble(parts[2]), Double.parseDouble(parts[3]), parts[4]);
+        } catch (NumberFormatException e) {
+            System.err.println("AgentFactoryAgent: Invalid CREATE_AGENT input: " + args);
+        }
+    }
+    
     /**
      * Create an agent of the specified type
      * @param agentType Type of agent (Boss, Waiter, Chef, Table, Client, Exit, Enter)
@@ -429,6 +452,11 @@ public class AgentFactoryAgent extends Agent {
                 System.out.println("AgentFactoryAgent: Creating dynamic client: " + clientName);
                 
                 // Create client at entry position (ClientContainer)
+                if (DeterministicRun.getInstance().isEnabled()) {
+                    DeterministicRun.getInstance().submit(CREATE_AGENT, "client:" + clientName + ":" +
+                        GridEnvironment.ENTRY_X + ":" + GridEnvironment.ENTRY_Y + ":ClientContainer");
+                    continue;
+                }
                 boolean success = createAgent("client", clientName, 
                     GridEnvironment.ENTRY_X, GridEnvironment.ENTRY_Y, "ClientContainer");
                 
@@ -8,6 +8,9 @@ import mas.core.BaseAgent;
 import mas.core.AgentStatus;
 import mas.core.Menu;
 import mas.core.DebugLogger;
+import mas.core.TickBehaviour;
+import mas.core.TickDuration;
+import mas.core.Trace;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -50,7 +53,7 @@ public class BossAgent extends BaseAgent {
         status = AgentStatus.BOSS_MONITORING;
         
         // Add behavior to wait for simulation to start before planning
-        addBehaviour(new jade.core.behaviours.TickerBehaviour(this, 1000) {
+        addBehaviour(new TickBehaviour(this, TickDuration.BOSS_START_CHECK_INTERVAL) {
             private static final long serialVersionUID = 1L;
             private boolean hasStarted = false;
             
@@ -69,27 +72,36 @@ public class BossAgent extends BaseAgent {
         addBehaviour(new BossMessageHandler());
         
         // Periodic Boss Status (Mood) log
-        addBehaviour(new jade.core.behaviours.TickerBehaviour(this, 5000) {
+        addBehaviour(new TickBehaviour(this, TickDuration.BOSS_STATUS_REPORT_INTERVAL) {
             @Override
             protected void onTick() {
-                double netProfit = totalRevenue - totalCost;
-                System.out.println("\n--- Boss Status Report ---");
-                System.out.println("Revenue: $" + String.format("%.2f", totalRevenue));
-                System.out.println("Cost:    $" + String.format("%.2f", totalCost));
-                System.out.println("Net:     $" + String.format("%.2f", netProfit));
-                
-                if (netProfit >= targetProfit) {
-                    System.out.println("BOSS STATUS: HAPPY! :D (Target reached)");
-                } else if (netProfit > 0) {
-                    System.out.println("BOSS STATUS: CAUTIOUSLY OPTIMISTIC (Profit is positive)");
-                } else {
-                    System.out.println("BOSS STATUS: NOT HAPPY. :( (Need more clients)");
-                }
-                System.out.println("--------------------------\n");
+                tracer().info(Trace.Category.STATUS, BossAgent.this::buildStatusReport);
             }
         });
     }
     
+    /**
+     * Build the periodic status (mood) report, only called when it is traced
+     */
+    private String buildStatusReport() {
+        double netProfit = totalRevenue - totalCost;
+        String mood;
+        if (netProfit >= targetProfit) {
+            mood = "HAPPY! :D (Target reached)";
+        } else if (netProfit > 0) {
+            mood = "CAUTIOUSLY OPTIMISTIC (Profit is positive)";
+        } else {
+            mood = "NOT HAPPY. :( (Need more clients)";
+        }
+        String nl = System.lineSeparator();
+        return "--- Boss Status Report ---" + nl +
+            "Revenue: $" + String.format("%.2f", totalRevenue) + nl +
+            "Cost:    $" + String.format("%.2f", totalCost) + nl +
+            "Net:     $" + String.format("%.2f", netProfit) + nl +
+            "BOSS STATUS: " + mood + nl +
+            "--------------------------";
+    }
+    
     /**
      * Planning behavior: Decisions on daily menu to maximize profit.
      */
@@ -103,7 +115,7 @@ public class BossAgent extends BaseAgent {
             
             // Randomly select 3-4 items for the daily menu
             Menu[] allItems = Menu.values();
-            Random rand = new Random();
+            Random rand = getRandom();
             int menuSize = 3 + rand.nextInt(2); // 3 or 4 items
             
             while (dailyMenu.size() < menuSize) {
@@ -6,10 +6,12 @@ import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import mas.core.BaseAgent;
 import mas.core.AgentStatus;
+import mas.core.TickBehaviour;
 import mas.core.TickDuration;
 
 import mas.core.Menu;
 import mas.core.DebugLogger;
+import mas.core.Trace;
 
 /**
  * CashierAgent manages payments and billing.
@@ -68,20 +70,20 @@ public class CashierAgent extends BaseAgent {
                     String clientName = parts[2];
                     double amount = Double.parseDouble(parts[3]);
                     
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Received PAYMENT_REQUEST from client " + clientName + " for $" + amount);
+                    tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received PAYMENT_REQUEST from client " + clientName + " for $" + amount);
                     setStatus(AgentStatus.CASHIER_PROCESSING_PAYMENT);
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Processing payment of $" + amount + " from " + clientName + " at table " + tableName);
+                    tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Processing payment of $" + amount + " from " + clientName + " at table " + tableName);
                     DebugLogger.info(getLocalName(), "cashier", getCurrentContainerName(), "Processing payment: $" + amount + " from " + clientName);
                     
-                    // Simulate payment processing using TickerBehaviour
-                    addBehaviour(new jade.core.behaviours.TickerBehaviour(myAgent, TickDuration.CASHIER_PROCESSING_PAYMENT.getMilliseconds()) {
+                    // Simulate payment processing using a tick-driven behaviour
+                    addBehaviour(new TickBehaviour(myAgent, TickDuration.CASHIER_PROCESSING_PAYMENT) {
                         private int ticks = 1;
                         @Override
                         protected void onTick() {
                             if (--ticks <= 0) {
                                 setStatus(AgentStatus.CASHIER_IDLE);
-                                System.out.println("[DEBUG] " + getDebugInfo() + " | Payment of $" + amount + " processed successfully for " + clientName);
-                                System.out.println("[DEBUG] " + getDebugInfo() + " | Sending PAYMENT_COMPLETE confirmation");
+                                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Payment of $" + amount + " processed successfully for " + clientName);
+                                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sending PAYMENT_COMPLETE confirmation");
                                 DebugLogger.success(getLocalName(), "cashier", getCurrentContainerName(), "Payment complete: $" + amount + " from " + clientName);
                                 
                                 // Notify client that payment is complete
@@ -91,7 +93,7 @@ public class CashierAgent extends BaseAgent {
                                 reply.setConversationId("Payment-Workflow");
                                 reply.setOntology("Restaurant-Service");
                                 send(reply);
-                                System.out.println("[DEBUG] " + getDebugInfo() + " | Sent PAYMENT_COMPLETE inform to client " + clientName);
+                                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sent PAYMENT_COMPLETE inform to client " + clientName);
                                 
                                 // Report profit to BossAgent (estimate cost as 40% of price)
                                 double cost = amount * 0.4;
@@ -103,7 +105,7 @@ public class CashierAgent extends BaseAgent {
                                 profitMsg.setConversationId("Profit-Oversight");
                                 profitMsg.setOntology("Financial-Report");
                                 send(profitMsg);
-                                System.out.println("[DEBUG] " + getDebugInfo() + " | Reported profit of $" + profit + " to Boss");
+                                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Reported profit of $" + profit + " to Boss");
                                 
                                 // Free the table
                                 System.out.println("CashierAgent: Table " + tableName + " will be freed by client");
@@ -7,8 +7,10 @@ import jade.lang.acl.MessageTemplate;
 import mas.core.BaseAgent;
 import mas.core.QueueManager;
 import mas.core.AgentStatus;
+import mas.core.TickBehaviour;
 import mas.core.TickDuration;
 import mas.core.DebugLogger;
+import mas.core.Trace;
 
 /**
  * ChefAgent prepares food orders.
@@ -68,12 +70,12 @@ public class ChefAgent extends BaseAgent {
             if (msg != null && msg.getContent().startsWith("PREPARE_ORDER:")) {
                 // Parse order: PREPARE_ORDER:tableName:clientName:menuItem
                 String order = msg.getContent();
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Received PREPARE_ORDER request from waiter");
+                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received PREPARE_ORDER request from waiter");
                 String[] parts = order.split(":");
                 String menuItem = parts.length >= 4 ? parts[3] : "unknown";
                 DebugLogger.info(getLocalName(), "chef", getCurrentContainerName(), "New order to prepare: " + menuItem);
                 orderQueue.enqueue(order);
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Order request added to queue: " + order);
+                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Order request added to queue: " + order);
                 
                 // Start preparing if not busy
                 if (!isPreparing) {
@@ -84,7 +86,7 @@ public class ChefAgent extends BaseAgent {
                 String[] parts = msg.getContent().split(":");
                 if (parts.length >= 2) {
                     String orderInfo = parts[1];
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Waiter arrived requesting order: " + orderInfo);
+                    tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Waiter arrived requesting order: " + orderInfo);
                     // Acknowledge waiter's arrival
                     ACLMessage ack = msg.createReply();
                     ack.setPerformative(ACLMessage.INFORM);
@@ -111,18 +113,18 @@ public class ChefAgent extends BaseAgent {
                     String menuItem = parts.length >= 4 ? parts[3] : "unknown";
                     
                     setStatus(AgentStatus.CHEF_PREPARING_ORDER);
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Starting to prepare " + menuItem + " for " + clientName + " at table " + tableName);
+                    tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Starting to prepare " + menuItem + " for " + clientName + " at table " + tableName);
                     DebugLogger.warning(getLocalName(), "chef", getCurrentContainerName(), "Cooking " + menuItem + " for " + clientName);
                     
-                    // Simulate food preparation time using a TickerBehaviour
-                    addBehaviour(new jade.core.behaviours.TickerBehaviour(myAgent, TickDuration.CHEF_PREPARING_ORDER.getMilliseconds()) {
+                    // Simulate food preparation time using a tick-driven behaviour
+                    addBehaviour(new TickBehaviour(myAgent, TickDuration.CHEF_PREPARING_ORDER) {
                         private int ticks = 1;
                         @Override
                         protected void onTick() {
                             if (--ticks <= 0) {
                                 setStatus(AgentStatus.CHEF_IDLE);
-                                System.out.println("[DEBUG] " + getDebugInfo() + " | Order ready (" + menuItem + ") for " + clientName + " at table " + tableName);
-                                System.out.println("[DEBUG] " + getDebugInfo() + " | Informing waiter that food is ready");
+                                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Order ready (" + menuItem + ") for " + clientName + " at table " + tableName);
+                                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Informing waiter that food is ready");
                                 DebugLogger.success(getLocalName(), "chef", getCurrentContainerName(), menuItem + " is ready! Notifying waiter");
                                 
                                 // Notify waiter that order is ready
@@ -133,7 +135,7 @@ public class ChefAgent extends BaseAgent {
                                 readyMsg.setConversationId("Order-Step-3");
                                 readyMsg.setOntology("Restaurant-Service");
                                 send(readyMsg);
-                                System.out.println("[DEBUG] " + getDebugInfo() + " | Sent ORDER_READY inform to waiter for table " + tableName + ", client " + clientName + " (" + menuItem + ")");
+                                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sent ORDER_READY inform to waiter for table " + tableName + ", client " + clientName + " (" + menuItem + ")");
                                 
                                 // Clear current order
                                 currentOrder = null;
@@ -2,7 +2,6 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.behaviours.CyclicBehaviour;
-import jade.core.behaviours.TickerBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
@@ -15,9 +14,11 @@ import mas.core.BaseAgent;
 import mas.core.AgentStatus;
 import mas.core.TickSystem;
 import mas.core.TickDuration;
+import mas.core.TickBehaviour;
 import mas.core.GridEnvironment;
 import mas.core.Menu;
 import mas.core.DebugLogger;
+import mas.core.Trace;
 
 /**
  * ClientAgent represents customers in the restaurant.
@@ -62,10 +63,7 @@ public class ClientAgent extends BaseAgent {
         if (args != null) {
             initializePosition(args);
         }
-        System.out.println("==========================================");
-        System.out.println("ClientAgent " + getLocalName() + " initialized at position " + getPositionString());
-        System.out.println("Current container: " + currentContainer);
-        System.out.println("==========================================");
+        tracer().debug(Trace.Category.LIFECYCLE, () -> "ClientAgent " + getLocalName() + " initialized at position " + getPositionString() + " in container " + currentContainer);
         
         // Initialize status
         status = AgentStatus.WAITING_IN_QUEUE;
@@ -88,7 +86,7 @@ public class ClientAgent extends BaseAgent {
         addBehaviour(new ClientMessageHandler());
         
         // Add behavior to wait for simulation to start before moving
-        addBehaviour(new jade.core.behaviours.TickerBehaviour(this, 1000) { // Check every second
+        addBehaviour(new TickBehaviour(this, TickDuration.CLIENT_START_CHECK_INTERVAL) { // Check every second
             private static final long serialVersionUID = 1L;
             private boolean hasStarted = false;
             
@@ -97,9 +95,7 @@ public class ClientAgent extends BaseAgent {
                 // Wait for TickSystem to start before beginning movement
                 if (!hasStarted && TickSystem.getInstance().isRunning()) {
                     hasStarted = true;
-                    System.out.println("==========================================");
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Simulation started, beginning movement to EntryContainer");
-                    System.out.println("==========================================");
+                    tracer().debug(Trace.Category.LIFECYCLE, () -> getDebugInfo() + " | Simulation started, beginning movement to EntryContainer");
                     DebugLogger.success(getLocalName(), "client", currentContainer, "Simulation started! Moving to entrance");
                     moveToEntryContainer();
                     stop(); // Stop this behavior once we've started
@@ -114,12 +110,12 @@ public class ClientAgent extends BaseAgent {
     private void moveToEntryContainer() {
         try {
             setStatus(AgentStatus.MOVING_TO_TABLE);
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to EntryContainer");
+            tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to EntryContainer");
             DebugLogger.info(getLocalName(), "client", currentContainer, "Moving to restaurant entrance");
             
             // Actually move to EntryContainer using JADE mobility
             // Post-move logic is now in afterMove()
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Triggering doMove to EntryContainer...");
+            tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Triggering doMove to EntryContainer...");
             moveToContainer("EntryContainer");
             
         } catch (Exception e) {
@@ -147,7 +143,8 @@ public class ClientAgent extends BaseAgent {
             double distX = Math.abs(x - tablePos[0]);
             double distY = Math.abs(y - tablePos[1]);
             if (distX <= tolerance && distY <= tolerance) {
-                System.out.println("[DEBUG] " + getDebugInfo() + " | At table " + i + " coordinates (distance: " + distX + "," + distY + ")");
+                int table = i;
+                tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | At table " + table + " coordinates (distance: " + distX + "," + distY + ")");
                 return i;
             }
         }
@@ -160,7 +157,7 @@ public class ClientAgent extends BaseAgent {
     private void moveToTable(String tableName) {
         assignedTable = tableName;
         setStatus(AgentStatus.MOVING_TO_TABLE);
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to TableContainer (Table: " + tableName + ")");
+        tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to TableContainer (Table: " + tableName + ")");
         DebugLogger.success(getLocalName(), "client", currentContainer, "Assigned to " + tableName + ", walking to table");
         
         String container = getCurrentContainerName();
@@ -179,7 +176,7 @@ public class ClientAgent extends BaseAgent {
      * Move directly to TableContainer (helper method)
      */
     private void moveToTableContainerDirectly(String tableName, double tableX, double tableY) {
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to TableContainer for table " + tableName);
+        tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to TableContainer for table " + tableName);
         moveToContainer("TableContainer");
     }
     
@@ -188,7 +185,7 @@ public class ClientAgent extends BaseAgent {
      */
     private void requestMenu() {
         try {
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Requesting menu from " + assignedTable);
+            tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Requesting menu from " + assignedTable);
             AID tableAID = new AID(assignedTable, AID.ISLOCALNAME);
             ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
             msg.addReceiver(tableAID);
@@ -206,8 +203,8 @@ public class ClientAgent extends BaseAgent {
      */
     private void requestWaiter() {
         setStatus(AgentStatus.ORDERING);
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Requesting waiter service for " + chosenItem);
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Informing waiter about order: ORDER_REQUEST");
+        tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Requesting waiter service for " + chosenItem);
+        tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Informing waiter about order: ORDER_REQUEST");
         DebugLogger.info(getLocalName(), "client", currentContainer, "Ordering food: " + chosenItem);
         
         // Add order request to waiter queue
@@ -235,7 +232,7 @@ public class ClientAgent extends BaseAgent {
         msg.setOntology("Restaurant-Service");
         msg.setSender(getAID()); // Explicitly set sender for cross-container visibility
         send(msg);
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Sent order inform to waiter: " + msg.getContent());
+        tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sent order inform to waiter: " + msg.getContent());
         
         hasOrdered = true;
     }
@@ -245,12 +242,12 @@ public class ClientAgent extends BaseAgent {
      */
     private void moveToCashier() {
         setStatus(AgentStatus.MOVING_TO_CASHIER);
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to CashierContainer");
+        tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to CashierContainer");
         DebugLogger.info(getLocalName(), "client", currentContainer, "Finished eating, going to pay");
         
         String container = getCurrentContainerName();
         if (container.equals("EnvContainer")) {
-            moveTo(60.0, 60.0); // Move toward cashier area (cashier is at 80,80)
+            moveTo(GridEnvironment.CASHIER_TRANSIT_X, GridEnvironment.CASHIER_TRANSIT_Y); // Move toward cashier area (cashier is at 80,80)
         } else {
             moveToContainer("EnvContainer");
         }
@@ -261,11 +258,11 @@ public class ClientAgent extends BaseAgent {
      */
     private void moveToExit() {
         setStatus(AgentStatus.MOVING_TO_EXIT);
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to ExitContainer");
+        tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to ExitContainer");
         
         String container = getCurrentContainerName();
         if (container.equals("EnvContainer")) {
-            moveTo(90.0, 90.0); // Move toward exit area (exit is at 100,100)
+            moveTo(GridEnvironment.EXIT_TRANSIT_X, GridEnvironment.EXIT_TRANSIT_Y); // Move toward exit area (exit is at 100,100)
         } else {
             moveToContainer("EnvContainer");
         }
@@ -285,7 +282,7 @@ public class ClientAgent extends BaseAgent {
             String expectedContainer = getExpectedContainerForPosition();
             if (!currentContainer.equals(expectedContainer)) {
                 // Only log if we're significantly off - allow some tolerance
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Container check - Current: " + currentContainer + ", Expected: " + expectedContainer);
+                tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Container check - Current: " + currentContainer + ", Expected: " + expectedContainer);
             }
         } catch (Exception e) {
             // Silently ignore - this is just a check
@@ -345,23 +342,22 @@ public class ClientAgent extends BaseAgent {
                 
                 if (content.startsWith("MOVE_TO_TABLE:")) {
                     String tableName = content.substring("MOVE_TO_TABLE:".length());
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Received MOVE_TO_TABLE message for table: " + tableName);
+                    tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received MOVE_TO_TABLE message for table: " + tableName);
                     moveToTable(tableName);
                 } else if (content.startsWith("MENU:")) {
                     String menuItems = content.substring("MENU:".length());
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Received menu: " + menuItems);
+                    tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received menu: " + menuItems);
                     
                     // Choose a random item from the menu
                     String[] items = menuItems.split(",");
                     if (items.length > 0 && !items[0].equals("NONE")) {
-                        java.util.Random rand = new java.util.Random();
-                        chosenItem = items[rand.nextInt(items.length)].trim();
-                        System.out.println("[DEBUG] " + getDebugInfo() + " | Decided to order: " + chosenItem);
+                        chosenItem = items[getRandom().nextInt(items.length)].trim();
+                        tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Decided to order: " + chosenItem);
                         requestWaiter();
                     } else {
                         System.err.println("[WARNING] " + getDebugInfo() + " | Menu is empty or not available. Retrying in 2 seconds...");
                         // Use a one-shot delay to retry
-                        addBehaviour(new TickerBehaviour(myAgent, 2000) {
+                        addBehaviour(new TickBehaviour(myAgent, TickDuration.CLIENT_MENU_RETRY) {
                             @Override
                             protected void onTick() {
                                 if (chosenItem == null) {
@@ -372,13 +368,13 @@ public class ClientAgent extends BaseAgent {
                         });
                     }
                 } else if (content.equals("FOOD_DELIVERED")) {
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Received FOOD_DELIVERED inform from waiter");
+                    tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received FOOD_DELIVERED inform from waiter");
                     setStatus(AgentStatus.EATING);
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Food (" + (chosenItem != null ? chosenItem : "unknown") + ") delivered, eating...");
+                    tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Food (" + (chosenItem != null ? chosenItem : "unknown") + ") delivered, eating...");
                     hasEaten = true;
                     
                     // After eating (simulated by ticks), move to cashier
-                    addBehaviour(new TickerBehaviour(myAgent, TickDuration.CLIENT_EATING.getMilliseconds()) {
+                    addBehaviour(new TickBehaviour(myAgent, TickDuration.CLIENT_EATING) {
                         private int ticksRemaining = 1; // Simulation of eating for 1 "tick" duration
                         @Override
                         protected void onTick() {
@@ -389,8 +385,8 @@ public class ClientAgent extends BaseAgent {
                         }
                     });
                 } else if (content.equals("PAYMENT_COMPLETE")) {
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Received PAYMENT_COMPLETE inform from cashier");
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Payment complete, leaving restaurant");
+                    tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received PAYMENT_COMPLETE inform from cashier");
+                    tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Payment complete, leaving restaurant");
                     hasPaid = true;
                     // Free the table BEFORE moving to exit
                     if (assignedTable != null) {
@@ -413,18 +409,18 @@ public class ClientAgent extends BaseAgent {
     @Override
     protected void onMovementFinished() {
         String container = getCurrentContainerName();
-        System.out.println("[DEBUG] " + getDebugInfo() + " | onMovementFinished in " + container + " with status " + status);
+        tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | onMovementFinished in " + container + " with status " + status);
         
         // Handle cashier and exit transit in EnvContainer
         if (container.equals("EnvContainer")) {
             if (status == AgentStatus.MOVING_TO_CASHIER) {
                 // Check if reached cashier transit point
-                if (Math.abs(x - 60.0) < 2.0 && Math.abs(y - 60.0) < 2.0) {
+                if (Math.abs(x - GridEnvironment.CASHIER_TRANSIT_X) < 2.0 && Math.abs(y - GridEnvironment.CASHIER_TRANSIT_Y) < 2.0) {
                     moveToContainer("CashierContainer");
                 }
             } else if (status == AgentStatus.MOVING_TO_EXIT) {
                 // Check if reached exit transit point
-                if (Math.abs(x - 90.0) < 2.0 && Math.abs(y - 90.0) < 2.0) {
+                if (Math.abs(x - GridEnvironment.EXIT_TRANSIT_X) < 2.0 && Math.abs(y - GridEnvironment.EXIT_TRANSIT_Y) < 2.0) {
                     moveToContainer("ExitContainer");
                 }
             }
@@ -433,7 +429,7 @@ public class ClientAgent extends BaseAgent {
         if (status == AgentStatus.MOVING_TO_TABLE) {
             if (container.equals("EntryContainer")) {
                 // Reached entry point, wait for assignment (already joined queue in afterMove)
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Reached entrance, waiting in queue.");
+                tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Reached entrance, waiting in queue.");
             } else if (container.equals("EnvContainer")) {
                 int atTable = checkIfAtTableCoordinate();
                 if (assignedTable != null) {
@@ -443,20 +439,20 @@ public class ClientAgent extends BaseAgent {
                     } else {
                         // Not there yet, or pathfinding finished early? 
                         // Re-trigger movement if needed, but normally should be there.
-                        System.out.println("[DEBUG] " + getDebugInfo() + " | Reached end of path in EnvContainer, but not at table " + tableNum + ". Current at: " + atTable);
+                        tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | Reached end of path in EnvContainer, but not at table " + tableNum + ". Current at: " + atTable);
                         double[] tablePos = getTableCoordinates(tableNum);
                         moveTo(tablePos[0], tablePos[1]);
                     }
                 }
             } else if (container.equals("TableContainer")) {
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Reached TableContainer, moving to table " + assignedTable);
+                tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Reached TableContainer, moving to table " + assignedTable);
                 setStatus(AgentStatus.AT_TABLE);
                 requestMenu();
             }
         } else if (status == AgentStatus.MOVING_TO_CASHIER) {
             if (container.equals("EnvContainer")) {
                 // Reached transit point toward cashier?
-                if (Math.abs(x - 60.0) < 2.0 && Math.abs(y - 60.0) < 2.0) {
+                if (Math.abs(x - GridEnvironment.CASHIER_TRANSIT_X) < 2.0 && Math.abs(y - GridEnvironment.CASHIER_TRANSIT_Y) < 2.0) {
                     moveToContainer("CashierContainer");
                 }
             } else if (container.equals("CashierContainer")) {
@@ -466,17 +462,17 @@ public class ClientAgent extends BaseAgent {
         } else if (status == AgentStatus.MOVING_TO_EXIT) {
             if (container.equals("EnvContainer")) {
                  // Reached transit point toward exit?
-                 if (Math.abs(x - 90.0) < 2.0 && Math.abs(y - 90.0) < 2.0) {
+                 if (Math.abs(x - GridEnvironment.EXIT_TRANSIT_X) < 2.0 && Math.abs(y - GridEnvironment.EXIT_TRANSIT_Y) < 2.0) {
                     moveToContainer("ExitContainer");
                 }
             } else if (container.equals("ExitContainer")) {
                 // Check if we've reached the exit position
                 if (Math.abs(x - GridEnvironment.EXIT_X) < 1.0 && Math.abs(y - GridEnvironment.EXIT_Y) < 1.0) {
                     setStatus(AgentStatus.EXITING);
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Reached exit position, thank you!");
+                    tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | Reached exit position, thank you!");
                     // Client will be killed by ExitAgent on next check (every 2 seconds)
                 } else {
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | In ExitContainer but not at exit position yet");
+                    tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | In ExitContainer but not at exit position yet");
                 }
             }
         }
@@ -489,7 +485,7 @@ public class ClientAgent extends BaseAgent {
     protected void afterMove() {
         super.afterMove();
         currentContainer = getCurrentContainerName();
-        System.out.println("[DEBUG] " + getDebugInfo() + " | afterMove hook called, initiating next actions in " + currentContainer);
+        tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | afterMove hook called, initiating next actions in " + currentContainer);
         
         if (currentContainer.equals("EntryContainer")) {
             // Move to entry position
@@ -503,7 +499,7 @@ public class ClientAgent extends BaseAgent {
             msg.setConversationId("Client-Queue");
             msg.setOntology("Restaurant-Init");
             send(msg);
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Sent JOIN_QUEUE to Enter1");
+            tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sent JOIN_QUEUE to Enter1");
         } else if (currentContainer.equals("EnvContainer")) {
             if (status == AgentStatus.MOVING_TO_TABLE) {
                 if (assignedTable != null) {
@@ -512,9 +508,9 @@ public class ClientAgent extends BaseAgent {
                     moveTo(tablePos[0], tablePos[1]);
                 }
             } else if (status == AgentStatus.MOVING_TO_CASHIER) {
-                moveTo(60.0, 60.0); // Transit point toward cashier
+                moveTo(GridEnvironment.CASHIER_TRANSIT_X, GridEnvironment.CASHIER_TRANSIT_Y); // Transit point toward cashier
             } else if (status == AgentStatus.MOVING_TO_EXIT) {
-                moveTo(90.0, 90.0); // Transit point toward exit
+                moveTo(GridEnvironment.EXIT_TRANSIT_X, GridEnvironment.EXIT_TRANSIT_Y); // Transit point toward exit
             }
         } else if (currentContainer.equals("TableContainer")) {
             if (assignedTable != null) {
@@ -537,21 +533,21 @@ public class ClientAgent extends BaseAgent {
         Menu menuItem = Menu.getByName(chosenItem);
         double amount = (menuItem != null) ? menuItem.getPrice() : 10.0;
         
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Requesting payment from cashier for item: " + chosenItem + " ($" + amount + ")");
+        tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Requesting payment from cashier for item: " + chosenItem + " ($" + amount + ")");
         ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
         msg.addReceiver(new AID("Cashier1", AID.ISLOCALNAME));
         msg.setContent("PAYMENT_REQUEST:" + assignedTable + ":" + getLocalName() + ":" + amount);
         msg.setConversationId("Payment-Flow");
         msg.setOntology("Restaurant-Service");
         send(msg);
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Sent PAYMENT_REQUEST to cashier: " + msg.getContent());
+        tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sent PAYMENT_REQUEST to cashier: " + msg.getContent());
     }
     
     /**
      * Inform table agent that the table is free
      */
     private void freeTable() {
-        System.out.println("[DEBUG] " + getDebugInfo() + " | Sending FREE_TABLE message to " + assignedTable);
+        tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sending FREE_TABLE message to " + assignedTable);
         ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
         // Use ISLOCALNAME - JADE handles cross-container messaging within the same platform
         msg.addReceiver(new AID(assignedTable, AID.ISLOCALNAME));
@@ -559,6 +555,6 @@ public class ClientAgent extends BaseAgent {
         msg.setConversationId("Table-Mgt");
         msg.setOntology("Restaurant-Service");
         send(msg);
-        System.out.println("[DEBUG] " + getDebugInfo() + " | FREE_TABLE message sent to " + assignedTable);
+        tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | FREE_TABLE message sent to " + assignedTable);
     }
 }
@@ -2,7 +2,6 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.behaviours.CyclicBehaviour;
-import jade.core.behaviours.TickerBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
@@ -13,8 +12,11 @@ import jade.wrapper.ContainerController;
 import jade.wrapper.StaleProxyException;
 import mas.core.BaseAgent;
 import mas.core.QueueManager;
+import mas.core.TickBehaviour;
 import mas.core.TickDuration;
+import mas.core.TickSystem;
 import mas.core.DebugLogger;
+import mas.core.Trace;
 
 /**
  * EnterAgent manages client entry into the restaurant.
@@ -23,8 +25,7 @@ import mas.core.DebugLogger;
 public class EnterAgent extends BaseAgent {
     private static final long serialVersionUID = 1L;
     private QueueManager clientQueue;
-    private long lastAssignmentTime = 0; // Track last table assignment time
-    private static final long ASSIGNMENT_COOLDOWN_MS = TickDuration.ASSIGNMENT_COOLDOWN.getMilliseconds();
+    private long lastAssignmentTick = -TickDuration.ASSIGNMENT_COOLDOWN.getTicks(); // Tick of the last table assignment
     
     /**
      * Constructor for EnterAgent with position coordinates
@@ -69,7 +70,7 @@ public class EnterAgent extends BaseAgent {
         addBehaviour(new ClientRegistrationBehaviour());
         
         // Add behavior to process queue and assign tables
-        addBehaviour(new TableAssignmentBehaviour(this, TickDuration.ENTER_AGENT_CHECK_INTERVAL.getMilliseconds()));
+        addBehaviour(new TableAssignmentBehaviour(this, TickDuration.ENTER_AGENT_CHECK_INTERVAL));
     }
     
     /**
@@ -88,9 +89,9 @@ public class EnterAgent extends BaseAgent {
             ACLMessage msg = receive(mt);
             if (msg != null) {
                 String clientName = msg.getSender().getLocalName();
-                System.out.println("[DEBUG] EnterAgent: Received JOIN_QUEUE from " + clientName);
+                tracer().debug(Trace.Category.MESSAGES, () -> "EnterAgent: Received JOIN_QUEUE from " + clientName);
                 clientQueue.enqueue(clientName);
-                System.out.println("[DEBUG] EnterAgent: Client " + clientName + " added to queue. Queue size: " + clientQueue.size());
+                tracer().debug(Trace.Category.WORKFLOW, () -> "EnterAgent: Client " + clientName + " added to queue. Queue size: " + clientQueue.size());
                 DebugLogger.info(getLocalName(), "enter", "EntryContainer", clientName + " joined queue (" + clientQueue.size() + " waiting)");
             } else {
                 block();
@@ -101,30 +102,28 @@ public class EnterAgent extends BaseAgent {
     /**
      * Behavior to check for available tables and assign clients using a non-blocking state machine
      */
-    private class TableAssignmentBehaviour extends TickerBehaviour {
+    private class TableAssignmentBehaviour extends TickBehaviour {
         private static final long serialVersionUID = 1L;
         
         private enum AssignmentState { IDLE, QUERYING, WAITING_FOR_QUERY_RESPONSES, OCCUPYING, WAITING_FOR_OCCUPY_CONFIRMATION }
         private AssignmentState state = AssignmentState.IDLE;
-        private long stateStartTime = 0;
+        private long stateStartTick = 0;
         private String currentCandidateTable = null;
         private String currentClient = null;
         private java.util.Map<String, String> tableResponses = new java.util.HashMap<>();
         private int expectedResponseCount = 0;
 
-        public TableAssignmentBehaviour(EnterAgent agent, long period) {
+        public TableAssignmentBehaviour(EnterAgent agent, TickDuration period) {
             super(agent, period);
         }
         
         @Override
         protected void onTick() {
-            if (!mas.core.TickSystem.getInstance().isRunning()) return;
-
-            long currentTime = System.currentTimeMillis();
+            long currentTick = TickSystem.getInstance().getCurrentTick();
             
             switch (state) {
                 case IDLE:
-                    if (!clientQueue.isEmpty() && (currentTime - lastAssignmentTime >= ASSIGNMENT_COOLDOWN_MS)) {
+                    if (!clientQueue.isEmpty() && (currentTick - lastAssignmentTick >= TickDuration.ASSIGNMENT_COOLDOWN.getTicks())) {
                         startQuerying();
                     }
                     break;
@@ -134,7 +133,7 @@ public class EnterAgent extends BaseAgent {
                     break;
                     
                 case WAITING_FOR_QUERY_RESPONSES:
-                    collectQueryResponses(currentTime);
+                    collectQueryResponses(currentTick);
                     break;
                     
                 case OCCUPYING:
@@ -142,14 +141,14 @@ public class EnterAgent extends BaseAgent {
                     break;
                     
                 case WAITING_FOR_OCCUPY_CONFIRMATION:
-                    checkOccupyConfirmation(currentTime);
+                    checkOccupyConfirmation(currentTick);
                     break;
             }
         }
         
         private void startQuerying() {
             try {
-                System.out.println("[DEBUG] EnterAgent: Starting table query. Queue size: " + clientQueue.size());
+                tracer().debug(Trace.Category.WORKFLOW, () -> "EnterAgent: Starting table query. Queue size: " + clientQueue.size());
                 DFAgentDescription template = new DFAgentDescription();
                 ServiceDescription sd = new ServiceDescription();
                 sd.setType("table-service");
@@ -157,7 +156,7 @@ public class EnterAgent extends BaseAgent {
                 
                 DFAgentDescription[] results = DFService.search(myAgent, template);
                 if (results == null || results.length == 0) {
-                    lastAssignmentTime = System.currentTimeMillis(); // Cooldown even on failure to avoid spamming
+                    lastAssignmentTick = TickSystem.getInstance().getCurrentTick(); // Cooldown even on failure to avoid spamming
                     return;
                 }
                 
@@ -174,14 +173,14 @@ public class EnterAgent extends BaseAgent {
                 }
                 
                 state = AssignmentState.WAITING_FOR_QUERY_RESPONSES;
-                stateStartTime = System.currentTimeMillis();
+                stateStartTick = TickSystem.getInstance().getCurrentTick();
             } catch (Exception e) {
                 System.err.println("EnterAgent: Error starting table query: " + e.getMessage());
                 state = AssignmentState.IDLE;
             }
         }
         
-        private void collectQueryResponses(long currentTime) {
+        private void collectQueryResponses(long currentTick) {
             MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.INFORM);
             // We don't filter by conversation ID strictly here to avoid missing messages, 
             // but we could if we stored the ID.
@@ -194,7 +193,7 @@ public class EnterAgent extends BaseAgent {
                 reply = myAgent.receive(mt);
             }
             
-            if (tableResponses.size() >= expectedResponseCount || (currentTime - stateStartTime > TickDuration.TABLE_QUERY_TIMEOUT.getMilliseconds())) {
+            if (tableResponses.size() >= expectedResponseCount || (currentTick - stateStartTick > TickDuration.TABLE_QUERY_TIMEOUT.getTicks())) {
                 // Done waiting, find an available table
                 for (java.util.Map.Entry<String, String> entry : tableResponses.entrySet()) {
                     if ("AVAILABLE".equals(entry.getValue())) {
@@ -209,7 +208,7 @@ public class EnterAgent extends BaseAgent {
                 }
                 // No table found or no client
                 state = AssignmentState.IDLE;
-                lastAssignmentTime = currentTime;
+                lastAssignmentTick = currentTick;
             }
         }
         
@@ -223,7 +222,7 @@ public class EnterAgent extends BaseAgent {
                 send(occupyMsg);
                 
                 state = AssignmentState.WAITING_FOR_OCCUPY_CONFIRMATION;
-                stateStartTime = System.currentTimeMillis();
+                stateStartTick = TickSystem.getInstance().getCurrentTick();
             } catch (Exception e) {
                 System.err.println("EnterAgent: Error sending occupy request: " + e.getMessage());
                 clientQueue.enqueue(currentClient);
@@ -231,7 +230,7 @@ public class EnterAgent extends BaseAgent {
             }
         }
         
-        private void checkOccupyConfirmation(long currentTime) {
+        private void checkOccupyConfirmation(long currentTick) {
             MessageTemplate mt = MessageTemplate.or(
                 MessageTemplate.MatchPerformative(ACLMessage.CONFIRM),
                 MessageTemplate.and(
@@ -245,14 +244,14 @@ public class EnterAgent extends BaseAgent {
                 if (reply.getSender().getLocalName().equals(currentCandidateTable)) {
                     System.out.println("EnterAgent: Table " + currentCandidateTable + " occupied by " + currentClient);
                     assignTableToClient(currentClient, currentCandidateTable);
-                    lastAssignmentTime = currentTime;
+                    lastAssignmentTick = currentTick;
                     state = AssignmentState.IDLE;
                 }
-            } else if (currentTime - stateStartTime > TickDuration.TABLE_QUERY_TIMEOUT.getMilliseconds()) {
+            } else if (currentTick - stateStartTick > TickDuration.TABLE_QUERY_TIMEOUT.getTicks()) {
                 System.err.println("EnterAgent: Timeout waiting for occupy confirmation from " + currentCandidateTable);
                 clientQueue.enqueue(currentClient);
                 state = AssignmentState.IDLE;
-                lastAssignmentTime = currentTime;
+                lastAssignmentTick = currentTick;
             }
         }
         
@@ -266,7 +265,7 @@ public class EnterAgent extends BaseAgent {
                 msg.addReceiver(clientAID);
                 msg.setContent("MOVE_TO_TABLE:" + tableName);
                 send(msg);
-                System.out.println("[DEBUG] EnterAgent: Assigned " + tableName + " to " + clientName + " (MOVE_TO_TABLE sent)");
+                tracer().debug(Trace.Category.WORKFLOW, () -> "EnterAgent: Assigned " + tableName + " to " + clientName + " (MOVE_TO_TABLE sent)");
             } catch (Exception e) {
                 System.err.println("EnterAgent: Error assigning table: " + e.getMessage());
             }
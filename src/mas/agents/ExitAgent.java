@@ -1,7 +1,6 @@
 package mas.agents;
 
 import jade.core.AID;
-import jade.core.behaviours.TickerBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
@@ -9,6 +8,7 @@ import jade.wrapper.AgentController;
 import jade.wrapper.ContainerController;
 import jade.wrapper.StaleProxyException;
 import mas.core.BaseAgent;
+import mas.core.TickBehaviour;
 import mas.core.TickDuration;
 import mas.core.TickSystem;
 import mas.core.DebugLogger;
@@ -46,16 +46,16 @@ public class ExitAgent extends BaseAgent {
         System.out.println("ExitAgent will check for client agents every 2 seconds");
         
         // Add behavior to check for client agents every 2 seconds
-        addBehaviour(new ClientCheckBehaviour(this, TickDuration.EXIT_AGENT_CHECK_INTERVAL.getMilliseconds()));
+        addBehaviour(new ClientCheckBehaviour(this, TickDuration.EXIT_AGENT_CHECK_INTERVAL));
     }
     
     /**
      * Behavior to check for client agents in ExitContainer and kill them
      */
-    private class ClientCheckBehaviour extends TickerBehaviour {
+    private class ClientCheckBehaviour extends TickBehaviour {
         private static final long serialVersionUID = 1L;
         
-        public ClientCheckBehaviour(ExitAgent agent, long period) {
+        public ClientCheckBehaviour(ExitAgent agent, TickDuration period) {
             super(agent, period);
         }
         
@@ -9,6 +9,8 @@ import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 import mas.core.BaseAgent;
 import mas.core.DebugLogger;
+import mas.core.Trace;
+import mas.core.GridEnvironment;
 
 /**
  * TableAgent represents a table in the restaurant.
@@ -51,6 +53,8 @@ public class TableAgent extends BaseAgent {
      */
     public void setAvailable(boolean available) {
         this.available = available;
+        // An occupied seat blocks the cell for everyone except agents heading to it
+        GridEnvironment.setOccupied(GridEnvironment.toGridX(x), GridEnvironment.toGridY(y), !available);
         System.out.println("TableAgent " + getLocalName() + ": Status changed to " + (available ? "AVAILABLE" : "OCCUPIED"));
         String status = available ? "Now AVAILABLE" : "Now OCCUPIED by " + currentClient;
         DebugLogger.Level level = available ? DebugLogger.Level.SUCCESS : DebugLogger.Level.INFO;
@@ -116,7 +120,7 @@ public class TableAgent extends BaseAgent {
                     String status = available ? "AVAILABLE" : "OCCUPIED";
                     reply.setContent(status);
                     send(reply);
-                    System.out.println("[DEBUG] TableAgent " + getLocalName() + " | Responded to availability check: " + status);
+                    tracer().debug(Trace.Category.MESSAGES, () -> "TableAgent " + getLocalName() + " | Responded to availability check: " + status);
                     return;
                 }
                 
@@ -154,7 +158,7 @@ public class TableAgent extends BaseAgent {
                         String freedClient = currentClient;
                         currentClient = null;
                         setAvailable(true);
-                        System.out.println("[DEBUG] TableAgent " + getLocalName() + " [Container: " + getCurrentContainerName() + ", Position: " + getPositionString() + "] | Table freed by " + (freedClient != null ? freedClient : "unknown") + ", now AVAILABLE");
+                        tracer().debug(Trace.Category.WORKFLOW, () -> "TableAgent " + getLocalName() + " [Container: " + getCurrentContainerName() + ", Position: " + getPositionString() + "] | Table freed by " + (freedClient != null ? freedClient : "unknown") + ", now AVAILABLE");
                     } else {
                         System.out.println("[WARNING] TableAgent " + getLocalName() + ": Received FREE_TABLE but table was already available");
                     }
@@ -193,7 +197,7 @@ public class TableAgent extends BaseAgent {
                 }
                 
                 // 7. Unknown message
-                System.out.println("[DEBUG] TableAgent " + getLocalName() + ": Received unknown message: " + content + " (Performative: " + ACLMessage.getPerformative(performative) + ")");
+                tracer().warn(Trace.Category.MESSAGES, () -> "TableAgent " + getLocalName() + ": Received unknown message: " + content + " (Performative: " + ACLMessage.getPerformative(performative) + ")");
             } else {
                 block();
             }
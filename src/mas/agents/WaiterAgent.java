@@ -2,7 +2,6 @@ package mas.agents;
 
 import jade.core.AID;
 import jade.core.behaviours.CyclicBehaviour;
-import jade.core.behaviours.TickerBehaviour;
 import jade.domain.DFService;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
@@ -13,8 +12,10 @@ import mas.core.QueueManager;
 import mas.core.AgentStatus;
 import mas.core.TickSystem;
 import mas.core.TickDuration;
+import mas.core.TickBehaviour;
 import mas.core.GridEnvironment;
 import mas.core.DebugLogger;
+import mas.core.Trace;
 
 /**
  * WaiterAgent handles table service and order taking.
@@ -75,14 +76,12 @@ public class WaiterAgent extends BaseAgent {
         addBehaviour(new OrderHandlerBehaviour());
         
         // Add periodic heartbeat to ensure waiter stays visible in GUI
-        addBehaviour(new TickerBehaviour(this, 2000) {
+        addBehaviour(new TickBehaviour(this, TickDuration.WAITER_HEARTBEAT_INTERVAL) {
             private static final long serialVersionUID = 1L;
             @Override
             protected void onTick() {
-                // Send state to API to keep waiter visible
-                sendStateToAPI();
-                // Debug log current state
-                System.out.println("[HEARTBEAT] " + getDebugInfo() + " | Status: " + status + 
+                // Debug log current state (BaseAgent keeps the waiter visible on the dashboard)
+                tracer().debug(Trace.Category.STATUS, () -> "[HEARTBEAT] " + getDebugInfo() + " | Status: " + status + 
                     ", waitingForChef: " + waitingForChef + 
                     ", currentOrder: " + (currentOrder != null ? "yes" : "no") +
                     ", queueSize: " + orderQueue.size() +
@@ -112,7 +111,7 @@ public class WaiterAgent extends BaseAgent {
                     String clientName = parts[2];
                     String menuItem = parts.length >= 4 ? parts[3] : "unknown";
                     
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Received ORDER_REQUEST from client " + clientName);
+                    tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received ORDER_REQUEST from client " + clientName);
                     DebugLogger.info(getLocalName(), "waiter", getCurrentContainerName(), "Order received from " + clientName + ": " + menuItem);
                     
                     // Send ORDER_RECEIVED confirmation to client
@@ -122,12 +121,12 @@ public class WaiterAgent extends BaseAgent {
                     confirmMsg.setContent("ORDER_RECEIVED:" + tableName + ":" + clientName);
                     confirmMsg.setSender(getAID()); // Explicitly set sender for Sniffer visibility
                     send(confirmMsg);
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Sent ORDER_RECEIVED confirmation to " + clientName + " (AID: " + msg.getSender().getName() + ")");
+                    tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sent ORDER_RECEIVED confirmation to " + clientName + " (AID: " + msg.getSender().getName() + ")");
                     DebugLogger.success(getLocalName(), "waiter", getCurrentContainerName(), "Order confirmed to " + clientName);
                     
                     // Add to order queue
                     orderQueue.enqueue(msg.getContent());
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Order request (" + menuItem + ") added to queue from " + clientName + " at table " + tableName);
+                    tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Order request (" + menuItem + ") added to queue from " + clientName + " at table " + tableName);
                     
                     // Process order if not busy AND not waiting for chef
                     if (currentOrder == null && status == AgentStatus.WAITER_IDLE && !waitingForChef) {
@@ -136,7 +135,7 @@ public class WaiterAgent extends BaseAgent {
                 }
             } else if (msg != null && msg.getContent().startsWith("ORDER_READY:")) {
                 // Order is ready, deliver to client
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Received ORDER_READY from chef: " + msg.getContent());
+                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received ORDER_READY from chef: " + msg.getContent());
                 waitingForChef = false;  // No longer waiting for chef
                 
                 // Parse the ORDER_READY message to update current order info if needed
@@ -151,7 +150,7 @@ public class WaiterAgent extends BaseAgent {
                 deliverOrderToClient();
             } else if (msg != null) {
                 // Other messages
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Received other message: " + msg.getContent() + " (Performative: " + ACLMessage.getPerformative(msg.getPerformative()) + ")");
+                tracer().warn(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Received other message: " + msg.getContent() + " (Performative: " + ACLMessage.getPerformative(msg.getPerformative()) + ")");
                 // Only process next order if truly idle and not waiting for chef
                 if (status == AgentStatus.WAITER_IDLE && !waitingForChef && !orderQueue.isEmpty() && currentOrder == null) {
                     processNextOrder();
@@ -175,7 +174,7 @@ public class WaiterAgent extends BaseAgent {
                     currentOrder = order;
                     
                     setStatus(AgentStatus.WAITER_GETTING_ORDER);
-                    System.out.println("[DEBUG] " + getDebugInfo() + " | Processing order for " + currentClient + " at table " + currentTable + " (Item: " + currentMenuItem + ")");
+                    tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Processing order for " + currentClient + " at table " + currentTable + " (Item: " + currentMenuItem + ")");
                     DebugLogger.info(getLocalName(), "waiter", getCurrentContainerName(), "Processing order: " + currentMenuItem + " for " + currentClient);
                     
                     // Move to table to take order
@@ -192,7 +191,7 @@ public class WaiterAgent extends BaseAgent {
         private void moveToTable() {
             try {
                 setStatus(AgentStatus.WAITER_MOVING_TO_TABLE);
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to TableContainer for table " + currentTable);
+                tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to TableContainer for table " + currentTable);
                 
                 // Move through EnvContainer
                 moveToContainer("EnvContainer");
@@ -207,7 +206,7 @@ public class WaiterAgent extends BaseAgent {
         private void moveToChefContainer() {
             try {
                 setStatus(AgentStatus.WAITER_MOVING_TO_CHEF);
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to ChefContainer with order from " + currentClient);
+                tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to ChefContainer with order from " + currentClient);
                 
                 // Move through EnvContainer
                 moveToContainer("EnvContainer");
@@ -222,7 +221,7 @@ public class WaiterAgent extends BaseAgent {
         private void deliverOrderToClient() {
             try {
                 setStatus(AgentStatus.WAITER_SERVING_ORDER);
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Order ready, moving to deliver to table " + currentTable);
+                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Order ready, moving to deliver to table " + currentTable);
                 
                 // Move through EnvContainer
                 moveToContainer("EnvContainer");
@@ -239,20 +238,19 @@ public class WaiterAgent extends BaseAgent {
     @Override
     protected void onMovementFinished() {
         String container = getCurrentContainerName();
-        System.out.println("[DEBUG] " + getDebugInfo() + " | onMovementFinished in " + container + " with status " + status);
+        tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | onMovementFinished in " + container + " with status " + status);
         
         if (status == AgentStatus.WAITER_MOVING_TO_TABLE) {
             if (container.equals("EnvContainer")) {
-                if (Math.abs(x - 15.0) < 2.0 && Math.abs(y - 15.0) < 2.0) {
+                if (Math.abs(x - GridEnvironment.WAITER_TRANSIT_X) < 2.0 && Math.abs(y - GridEnvironment.WAITER_TRANSIT_Y) < 2.0) {
                     moveToContainer("TableContainer");
                 }
             } else if (container.equals("TableContainer")) {
                 // Already sent ORDER_RECEIVED when request was received
                 // Now simulate taking order and move to chef
-                System.out.println("[DEBUG] " + getDebugInfo() + " | At table, preparing to deliver order to chef");
+                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | At table, preparing to deliver order to chef");
                 
-                long delay = TickDuration.WAITER_TAKING_ORDER.getMilliseconds();
-                addBehaviour(new TickerBehaviour(this, delay) {
+                addBehaviour(new TickBehaviour(this, TickDuration.WAITER_TAKING_ORDER) {
                     private static final long serialVersionUID = 1L;
                     @Override
                     protected void onTick() {
@@ -263,12 +261,12 @@ public class WaiterAgent extends BaseAgent {
             }
         } else if (status == AgentStatus.WAITER_MOVING_TO_CHEF) {
             if (container.equals("EnvContainer")) {
-                if (Math.abs(x - 15.0) < 2.0 && Math.abs(y - 15.0) < 2.0) {
+                if (Math.abs(x - GridEnvironment.WAITER_TRANSIT_X) < 2.0 && Math.abs(y - GridEnvironment.WAITER_TRANSIT_Y) < 2.0) {
                     moveToContainer("ChefContainer");
                 }
             } else if (container.equals("ChefContainer")) {
                 // Request chef to prepare order
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Arrived at chef, requesting order preparation");
+                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Arrived at chef, requesting order preparation");
                 AID chefAID = new AID("Chef1", AID.ISLOCALNAME);
                 ACLMessage orderMsg = new ACLMessage(ACLMessage.REQUEST);
                 orderMsg.addReceiver(chefAID);
@@ -276,23 +274,23 @@ public class WaiterAgent extends BaseAgent {
                 orderMsg.setConversationId("Order-Step-2");
                 orderMsg.setOntology("Restaurant-Service");
                 send(orderMsg);
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Sent PREPARE_ORDER request to chef for (" + currentMenuItem + ")");
+                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sent PREPARE_ORDER request to chef for (" + currentMenuItem + ")");
                 
                 // Mark that we're waiting for the chef - don't process new orders
                 waitingForChef = true;
                 // Set status to show waiter is waiting, but use a waiting-specific status or keep IDLE
                 // Use WAITER_IDLE but the waitingForChef flag prevents new order processing
                 setStatus(AgentStatus.WAITER_IDLE);
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Waiting for chef to prepare order (waitingForChef=true)");
+                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Waiting for chef to prepare order (waitingForChef=true)");
             }
         } else if (status == AgentStatus.WAITER_SERVING_ORDER) {
             if (container.equals("EnvContainer")) {
-                if (Math.abs(x - 15.0) < 2.0 && Math.abs(y - 15.0) < 2.0) {
+                if (Math.abs(x - GridEnvironment.WAITER_TRANSIT_X) < 2.0 && Math.abs(y - GridEnvironment.WAITER_TRANSIT_Y) < 2.0) {
                     moveToContainer("TableContainer");
                 }
             } else if (container.equals("TableContainer")) {
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Delivering food to " + currentClient);
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Informing client about ready order");
+                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Delivering food to " + currentClient);
+                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Informing client about ready order");
                 
                 AID clientAID = new AID(currentClient, AID.ISLOCALNAME);
                 ACLMessage deliveryMsg = new ACLMessage(ACLMessage.INFORM);
@@ -301,11 +299,11 @@ public class WaiterAgent extends BaseAgent {
                 deliveryMsg.setConversationId("Order-Step-4");
                 deliveryMsg.setOntology("Restaurant-Service");
                 send(deliveryMsg);
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Informed client " + currentClient + " ready order delivered: FOOD_DELIVERED");
+                tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Informed client " + currentClient + " ready order delivered: FOOD_DELIVERED");
                 
                 // Done with this order - increment counter and clear state
                 ordersCompleted++;
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Order #" + ordersCompleted + " completed for " + currentClient);
+                tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Order #" + ordersCompleted + " completed for " + currentClient);
                 DebugLogger.success(getLocalName(), "waiter", getCurrentContainerName(), "Delivered order #" + ordersCompleted + " to " + currentClient);
                 
                 currentOrder = null;
@@ -316,7 +314,7 @@ public class WaiterAgent extends BaseAgent {
                 setStatus(AgentStatus.WAITER_IDLE);
                 
                 // Process next order if any - with small delay to ensure state is stable
-                addBehaviour(new TickerBehaviour(this, 500) {
+                addBehaviour(new TickBehaviour(this, TickDuration.WAITER_NEXT_ORDER_DELAY) {
                     private static final long serialVersionUID = 1L;
                     @Override
                     protected void onTick() {
@@ -334,11 +332,11 @@ public class WaiterAgent extends BaseAgent {
     @Override
     protected void afterMove() {
         super.afterMove();
-        System.out.println("[DEBUG] " + getDebugInfo() + " | afterMove hook called, status=" + status);
+        tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | afterMove hook called, status=" + status);
         
         String container = getCurrentContainerName();
         if (container.equals("EnvContainer")) {
-            moveTo(15.0, 15.0); // Move to transit point
+            moveTo(GridEnvironment.WAITER_TRANSIT_X, GridEnvironment.WAITER_TRANSIT_Y); // Move to transit point
         } else if (container.equals("TableContainer")) {
             if (currentTable != null) {
                 int tableNum = Integer.parseInt(currentTable.replace("Table", ""));
@@ -361,7 +359,7 @@ public class WaiterAgent extends BaseAgent {
      * Trigger next order processing from anywhere
      */
     public void triggerNextOrder() {
-        System.out.println("[DEBUG] " + getDebugInfo() + " | triggerNextOrder called - status=" + status + 
+        tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | triggerNextOrder called - status=" + status + 
             ", waitingForChef=" + waitingForChef + ", queueSize=" + orderQueue.size() + 
             ", currentOrder=" + (currentOrder != null));
         
@@ -372,9 +370,9 @@ public class WaiterAgent extends BaseAgent {
             dummy.addReceiver(getAID());
             dummy.setContent("TRIGGER_NEXT_ORDER");
             send(dummy);
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Sent trigger message to process next order");
+            tracer().debug(Trace.Category.MESSAGES, () -> getDebugInfo() + " | Sent trigger message to process next order");
         } else if (!orderQueue.isEmpty()) {
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Cannot process next order yet - busy or waiting");
+            tracer().debug(Trace.Category.WORKFLOW, () -> getDebugInfo() + " | Cannot process next order yet - busy or waiting");
         }
     }
     
@@ -382,7 +380,7 @@ public class WaiterAgent extends BaseAgent {
     private void moveToChefContainer() {
         try {
             setStatus(AgentStatus.WAITER_MOVING_TO_CHEF);
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to ChefContainer");
+            tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to ChefContainer");
             moveToContainer("EnvContainer");
         } catch (Exception e) {}
     }
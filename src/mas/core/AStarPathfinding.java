@@ -3,43 +3,196 @@ package mas.core;
 import java.util.*;
 
 /**
- * A* pathfinding algorithm for agent movement on grid
+ * A* pathfinding algorithm for agent movement on grid.
+ * Only walkable cells of the GridEnvironment occupancy map are expanded.
+ * The search is allocation-free: every thread reuses its own workspace of
+ * primitive arrays indexed by cell (y * width + x), and the open set is an
+ * indexed binary heap keyed by cell index.
  */
 public class AStarPathfinding {
     
+    // Neighbor offsets (4-directional movement)
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    
+    private static final ThreadLocal<SearchWorkspace> WORKSPACE =
+        ThreadLocal.withInitial(SearchWorkspace::new);
+    
+    /**
+     * Search algorithm used by findPath. ASTAR and JUMP_POINT return the same shortest-path
+     * lengths; JUMP_POINT expands far fewer nodes on open floor. HIERARCHICAL searches
+     * cluster entrances first (paths may be a few steps longer) and is the default on large grids.
+     */
+    public enum Strategy {
+        ASTAR,
+        JUMP_POINT,
+        HIERARCHICAL
+    }
+    
+    // Grids with more cells than this use HIERARCHICAL unless -Dmas.pathfinding says otherwise
+    private static final int HIERARCHICAL_MIN_CELLS = 250000;
+    
+    private static volatile Strategy strategy = defaultStrategy();
+    
+    private static Strategy defaultStrategy() {
+        String property = System.getProperty("mas.pathfinding", "");
+        if (property.equalsIgnoreCase("jps")) {
+            return Strategy.JUMP_POINT;
+        }
+        if (property.equalsIgnoreCase("hpa")) {
+            return Strategy.HIERARCHICAL;
+        }
+        if (property.equalsIgnoreCase("astar")) {
+            return Strategy.ASTAR;
+        }
+        return GridEnvironment.GRID_WIDTH * GridEnvironment.GRID_HEIGHT > HIERARCHICAL_MIN_CELLS
+            ? Strategy.HIERARCHICAL : Strategy.ASTAR;
+    }
+    
     /**
-     * Node class for A* algorithm
+     * Per-thread search state. Arrays are only grown, never shrunk, and are
+     * invalidated between searches by bumping the generation counter instead
+     * of being cleared.
      */
-    private static class Node {
-        int x, y;
-        double gCost, hCost, fCost;
-        Node parent;
+    static final class SearchWorkspace {
+        int[] gCost = new int[0];
+        int[] fCost = new int[0];
+        int[] parent = new int[0];
+        int[] seen = new int[0];      // generation in which the cell was reached
+        int[] closed = new int[0];    // generation in which the cell was expanded
+        int[] heapIndex = new int[0]; // position of the cell in the heap, -1 if not queued
+        int[] heap = new int[0];
+        int heapSize;
+        int generation;
+        int expanded;                 // nodes popped in the current search (diagnostics)
         
-        Node(int x, int y) {
-            this.x = x;
-            this.y = y;
-            this.gCost = 0;
-            this.hCost = 0;
-            this.fCost = 0;
-            this.parent = null;
+        /**
+         * Prepare the workspace for a search over the given number of cells
+         */
+        void begin(int cells) {
+            if (gCost.length < cells) {
+                gCost = new int[cells];
+                fCost = new int[cells];
+                parent = new int[cells];
+                seen = new int[cells];
+                closed = new int[cells];
+                heapIndex = new int[cells];
+                heap = new int[cells];
+                generation = 0;
+            }
+            heapSize = 0;
+            expanded = 0;
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                generation = 1;
+            }
         }
         
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            Node node = (Node) o;
-            return x == node.x && y == node.y;
+        boolean isSeen(int cell) {
+            return seen[cell] == generation;
         }
         
-        @Override
-        public int hashCode() {
-            return Objects.hash(x, y);
+        boolean isClosed(int cell) {
+            return closed[cell] == generation;
+        }
+        
+        /**
+         * Heap ordering: lowest F first, ties broken by highest G (closest to goal)
+         */
+        private boolean before(int a, int b) {
+            if (fCost[a] != fCost[b]) {
+                return fCost[a] < fCost[b];
+            }
+            return gCost[a] > gCost[b];
+        }
+        
+        /**
+         * Insert a cell into the open set, or decrease its key if already queued
+         */
+        void push(int cell) {
+            if (seen[cell] == generation && heapIndex[cell] >= 0) {
+                siftUp(heapIndex[cell]);
+                return;
+            }
+            heap[heapSize] = cell;
+            heapIndex[cell] = heapSize;
+            siftUp(heapSize++);
+        }
+        
+        /**
+         * Remove and return the cell with the lowest F cost
+         */
+        int pop() {
+            int top = heap[0];
+            heapIndex[top] = -1;
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                heap[0] = last;
+                heapIndex[last] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+        
+        private void siftUp(int pos) {
+            int cell = heap[pos];
+            while (pos > 0) {
+                int parentPos = (pos - 1) >>> 1;
+                int parentCell = heap[parentPos];
+                if (!before(cell, parentCell)) {
+                    break;
+                }
+                heap[pos] = parentCell;
+                heapIndex[parentCell] = pos;
+                pos = parentPos;
+            }
+            heap[pos] = cell;
+            heapIndex[cell] = pos;
+        }
+        
+        private void siftDown(int pos) {
+            int cell = heap[pos];
+            int half = heapSize >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int right = child + 1;
+                if (right < heapSize && before(heap[right], heap[child])) {
+                    child = right;
+                }
+                if (!before(heap[child], cell)) {
+                    break;
+                }
+                heap[pos] = heap[child];
+                heapIndex[heap[pos]] = pos;
+                pos = child;
+            }
+            heap[pos] = cell;
+            heapIndex[cell] = pos;
         }
     }
     
     /**
-     * Calculate path from start to goal using A* algorithm
+     * Select the search algorithm (can also be set with -Dmas.pathfinding=astar|jps|hpa)
+     */
+    public static void setStrategy(Strategy newStrategy) {
+        strategy = newStrategy;
+        PathCache.getInstance().clear();
+    }
+    
+    public static Strategy getStrategy() {
+        return strategy;
+    }
+    
+    /**
+     * Get number of nodes expanded by the last search on the calling thread
+     */
+    public static int getLastExpandedNodes() {
+        return WORKSPACE.get().expanded;
+    }
+    
+    /**
+     * Calculate path from start to goal using the selected strategy
      * @param startX Start X coordinate
      * @param startY Start Y coordinate
      * @param goalX Goal X coordinate
@@ -47,105 +200,107 @@ public class AStarPathfinding {
      * @return List of path points, or empty list if no path found
      */
     public static List<int[]> findPath(int startX, int startY, int goalX, int goalY) {
-        if (!GridEnvironment.isValidPosition(startX, startY) || 
+        return findPackedPath(startX, startY, goalX, goalY).toList();
+    }
+    
+    /**
+     * Calculate path from start to goal without allocating a point per step
+     * @return Packed path, or PackedPath.EMPTY if no path found
+     */
+    public static PackedPath findPackedPath(int startX, int startY, int goalX, int goalY) {
+        if (!GridEnvironment.isValidPosition(startX, startY) ||
             !GridEnvironment.isValidPosition(goalX, goalY)) {
-            return new ArrayList<>();
+            return PackedPath.EMPTY;
         }
         
-        Node start = new Node(startX, startY);
-        Node goal = new Node(goalX, goalY);
+        int width = GridEnvironment.GRID_WIDTH;
+        int height = GridEnvironment.GRID_HEIGHT;
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
         
-        Set<Node> openSet = new HashSet<>();
-        Set<Node> closedSet = new HashSet<>();
-        Map<Node, Node> cameFrom = new HashMap<>();
-        
-        start.gCost = 0;
-        start.hCost = heuristic(start, goal);
-        start.fCost = start.gCost + start.hCost;
+        if (strategy == Strategy.HIERARCHICAL) {
+            return PackedPath.of(GridEnvironment.getHierarchicalPathfinder().findPath(startX, startY, goalX, goalY), width);
+        }
+        OccupancyMap map = GridEnvironment.getOccupancyMap();
+        SearchWorkspace ws = WORKSPACE.get();
+        if (strategy == Strategy.JUMP_POINT) {
+            return JumpPointSearch.findPath(map, ws, startX, startY, goalX, goalY);
+        }
+        ws.begin(width * height);
         
-        openSet.add(start);
+        ws.seen[start] = ws.generation;
+        ws.gCost[start] = 0;
+        ws.fCost[start] = heuristic(startX, startY, goalX, goalY);
+        ws.parent[start] = -1;
+        ws.heapIndex[start] = -1;
+        ws.push(start);
         
-        while (!openSet.isEmpty()) {
-            Node current = getLowestF(openSet);
+        while (ws.heapSize > 0) {
+            int current = ws.pop();
+            ws.expanded++;
             
-            if (current.equals(goal)) {
-                // Reconstruct path
-                return reconstructPath(cameFrom, current);
+            if (current == goal) {
+                return reconstructPath(ws, current, width);
             }
             
-            openSet.remove(current);
-            closedSet.add(current);
-            
-            // Check neighbors (4-directional movement)
-            int[] dx = {0, 1, 0, -1};
-            int[] dy = {-1, 0, 1, 0};
+            ws.closed[current] = ws.generation;
+            int cx = current % width;
+            int cy = current / width;
+            int nextG = ws.gCost[current] + 1; // Each step costs 1
             
             for (int i = 0; i < 4; i++) {
-                int newX = current.x + dx[i];
-                int newY = current.y + dy[i];
+                int newX = cx + DX[i];
+                int newY = cy + DY[i];
                 
-                if (!GridEnvironment.isValidPosition(newX, newY)) {
+                int neighbor = newY * width + newX;
+                // The goal may be occupied (e.g. the seat the agent is heading to) but is still enterable
+                if (!map.isWalkable(newX, newY) && !(neighbor == goal && map.inBounds(newX, newY))) {
                     continue;
                 }
                 
-                Node neighbor = new Node(newX, newY);
-                
-                if (closedSet.contains(neighbor)) {
+                if (ws.isClosed(neighbor)) {
                     continue;
                 }
                 
-                double tentativeGCost = current.gCost + 1; // Each step costs 1
-                
-                if (!openSet.contains(neighbor)) {
-                    openSet.add(neighbor);
-                } else if (tentativeGCost >= neighbor.gCost) {
-                    continue;
+                if (ws.isSeen(neighbor)) {
+                    if (nextG >= ws.gCost[neighbor]) {
+                        continue;
+                    }
+                } else {
+                    ws.seen[neighbor] = ws.generation;
+                    ws.heapIndex[neighbor] = -1;
                 }
                 
-                cameFrom.put(neighbor, current);
-                neighbor.gCost = tentativeGCost;
-                neighbor.hCost = heuristic(neighbor, goal);
-                neighbor.fCost = neighbor.gCost + neighbor.hCost;
+                ws.parent[neighbor] = current;
+                ws.gCost[neighbor] = nextG;
+                ws.fCost[neighbor] = nextG + heuristic(newX, newY, goalX, goalY);
+                ws.push(neighbor);
             }
         }
         
         // No path found
-        return new ArrayList<>();
-    }
-    
-    /**
-     * Get node with lowest F cost from open set
-     */
-    private static Node getLowestF(Set<Node> openSet) {
-        Node lowest = null;
-        for (Node node : openSet) {
-            if (lowest == null || node.fCost < lowest.fCost) {
-                lowest = node;
-            }
-        }
-        return lowest;
+        return PackedPath.EMPTY;
     }
     
     /**
      * Heuristic function (Manhattan distance)
      */
-    private static double heuristic(Node a, Node b) {
-        return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
+    private static int heuristic(int x, int y, int goalX, int goalY) {
+        return Math.abs(x - goalX) + Math.abs(y - goalY);
     }
     
     /**
      * Reconstruct path from goal to start
      */
-    private static List<int[]> reconstructPath(Map<Node, Node> cameFrom, Node current) {
-        List<int[]> path = new ArrayList<>();
-        path.add(new int[]{current.x, current.y});
-        
-        while (cameFrom.containsKey(current)) {
-            current = cameFrom.get(current);
-            path.add(0, new int[]{current.x, current.y}); // Add to beginning
+    private static PackedPath reconstructPath(SearchWorkspace ws, int goal, int width) {
+        int length = ws.gCost[goal] + 1;
+        int[] cells = new int[length];
+        int cell = goal;
+        for (int i = length - 1; i >= 0; i--) {
+            cells[i] = cell;
+            cell = ws.parent[cell];
         }
-        
-        return path;
+        return PackedPath.ofCells(cells, length, width);
     }
 }
 
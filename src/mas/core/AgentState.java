@@ -0,0 +1,114 @@
+package mas.core;
+
+/**
+ * Snapshot of what the dashboard shows for an agent. Immutable, so the publisher can
+ * keep the last state it sent and compare against it (delta mode).
+ */
+public final class AgentState {
+    private final String id;
+    private final String type;
+    private final double x;
+    private final double y;
+    private final String status;
+    private final String container;
+    
+    public AgentState(String id, String type, double x, double y, String status, String container) {
+        this.id = id;
+        this.type = type;
+        this.x = round(x);
+        this.y = round(y);
+        this.status = status;
+        this.container = container;
+    }
+    
+    /**
+     * Positions are sent with 2 decimals, like the former "%.2f" format
+     */
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public double getX() {
+        return x;
+    }
+    
+    public double getY() {
+        return y;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public String getContainer() {
+        return container;
+    }
+    
+    /**
+     * Get the state as the JSON object the /update route expects
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(128);
+        appendJson(sb, null);
+        return sb.toString();
+    }
+    
+    /**
+     * Append the state as a JSON object
+     * @param previous Last state sent for this agent; when set, only the id and the
+     *                 fields that differ from it are written
+     */
+    public void appendJson(StringBuilder sb, AgentState previous) {
+        sb.append("{\"id\":");
+        appendString(sb, id);
+        if (previous == null || !type.equals(previous.type)) {
+            sb.append(",\"type\":");
+            appendString(sb, type);
+        }
+        if (previous == null || x != previous.x) {
+            sb.append(",\"x\":").append(x);
+        }
+        if (previous == null || y != previous.y) {
+            sb.append(",\"y\":").append(y);
+        }
+        if (previous == null || !status.equals(previous.status)) {
+            sb.append(",\"status\":");
+            appendString(sb, status);
+        }
+        if (previous == null || !container.equals(previous.container)) {
+            sb.append(",\"container\":");
+            appendString(sb, container);
+        }
+        sb.append('}');
+    }
+    
+    /**
+     * Check if this state shows the given values (positions compared after rounding)
+     */
+    public boolean matches(double x, double y, String status, String container) {
+        return this.x == round(x) && this.y == round(y) && this.status.equals(status) && this.container.equals(container);
+    }
+    
+    static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -3,12 +3,6 @@ package mas.core;
 import jade.core.Agent;
 import jade.core.ContainerID;
 import jade.core.Location;
-import java.util.List;
-import java.util.ArrayList;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 
 /**
  * Base agent class for all agents in the restaurant simulation.
@@ -21,14 +15,43 @@ public abstract class BaseAgent extends Agent implements TickSystem.TickListener
     protected double x;  // X coordinate position
     protected double y;  // Y coordinate position
     protected AgentStatus status = null;  // Current agent status
-    protected List<int[]> currentPath = new ArrayList<>();  // Current path for movement
+    protected PackedPath currentPath = PackedPath.EMPTY;  // Current path for movement
     protected int currentPathIndex = 0;  // Current index in path
     protected double targetX = 0, targetY = 0;  // Target position
     protected boolean isMoving = false;  // Whether agent is currently moving
+    private int flowGoalCell = -1;  // Goal cell when following a precomputed flow field, -1 when following currentPath
+    private transient HierarchicalPathfinder.Route route;  // Remaining segments of a hierarchical route, null otherwise
+    private transient DStarLite replanner;  // Incremental planner, created once the grid changes under currentPath
+    private int pathVersion;  // Occupancy map version currentPath was planned against
+    private transient PathPlanningService.PathRequest pendingPath;  // Search waiting for the next tick's batch
     
-    private static final String API_URL = "http://localhost:5001/update";
+    // Cooperative movement (see ReservationTable)
+    private final int reservationId = ReservationTable.nextAgentId();
+    private transient FlowField goalField;  // Shared field for a goal without a precomputed one
+    private transient int[] window;  // Reserved cells, window[i] is where this agent stands at tick windowTick + i
+    private long windowTick;
+    private transient int parkedCell = -1;  // Cell kept in the ReservationTable since movement finished
+    
+    // Port of the dashboard (embedded server or Flask API), shared by every client of it
+    public static final int API_PORT = Integer.getInteger("mas.dashboard.port", 5001);
+    public static final String API_BASE_URL = "http://localhost:" + API_PORT;
+    static final String API_URL = API_BASE_URL + "/update";
+    static final String API_BATCH_URL = API_URL + "/batch";  // States are sent in batches, see StatePublisher
     private long lastUpdateTick = -1;
     private static final int UPDATE_INTERVAL_TICKS = 2; // Update every 2 ticks to save bandwidth
+    private static final long VIRTUAL_UPDATE_INTERVAL_NANOS = 100_000_000L; // In virtual time, update every 100ms of wall time
+    private transient long lastUpdateNanos;
+    private transient int lastQueueSize;  // Message queue size at the last hasPendingWork() check
+    private transient long queueUnchangedSince;  // When the queue size last changed (nanoTime)
+    private transient int stuckMessages;  // Messages left in the queue that no behaviour takes
+    private transient boolean movementFinished;  // Set in MOVE, handled in DECIDE
+    private java.util.Random random;  // See getRandom(), kept across migrations
+    private static final long HEARTBEAT_INTERVAL_NANOS = 4_000_000_000L; // Re-send an unchanged state well before the API's 10s stale cleanup
+    private transient volatile AgentState lastPublished;
+    private transient volatile long lastPublishNanos;
+    private transient String publishedContainer;  // Container name for the dashboard, reset on migration
+    private transient String publishedType;
+    private transient Trace.Tracer tracer;
     
     /**
      * Constructor for BaseAgent with position coordinates
@@ -183,14 +206,16 @@ public abstract class BaseAgent extends Agent implements TickSystem.TickListener
             AgentStatus oldStatus = status;
             status = newStatus;
             String oldStatusStr = oldStatus != null ? oldStatus.toString() : "NULL";
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Status: " + oldStatusStr + " → " + newStatus);
+            tracer().debug(Trace.Category.STATUS, () -> getDebugInfo() + " | Status: " + oldStatusStr + " -> " + newStatus);
             sendStateToAPI(); // Update API immediately on status change
         }
     }
     
     /**
      * Move agent to target position using A* pathfinding
-     * Movement happens step by step using ticks
+     * Movement happens step by step using ticks. Unless disabled, agents heading to a goal
+     * with a distance field move cooperatively: they reserve their next cells in the
+     * ReservationTable and never step onto a cell another moving agent has reserved.
      */
     public void moveTo(double targetX, double targetY) {
         this.targetX = targetX;
@@ -202,29 +227,64 @@ public abstract class BaseAgent extends Agent implements TickSystem.TickListener
         if (targetY < 0) targetY = 0;
         if (targetY >= GridEnvironment.GRID_HEIGHT) targetY = GridEnvironment.GRID_HEIGHT - 1;
         
-        int startX = GridEnvironment.toGridX(x);
-        int startY = GridEnvironment.toGridY(y);
-        int goalX = GridEnvironment.toGridX(targetX);
-        int goalY = GridEnvironment.toGridY(targetY);
-        
         // Ensure coordinates are within grid
-        if (startX < 0) startX = 0;
-        if (startX >= GridEnvironment.GRID_WIDTH) startX = GridEnvironment.GRID_WIDTH - 1;
-        if (startY < 0) startY = 0;
-        if (startY >= GridEnvironment.GRID_HEIGHT) startY = GridEnvironment.GRID_HEIGHT - 1;
-        if (goalX < 0) goalX = 0;
-        if (goalX >= GridEnvironment.GRID_WIDTH) goalX = GridEnvironment.GRID_WIDTH - 1;
-        if (goalY < 0) goalY = 0;
-        if (goalY >= GridEnvironment.GRID_HEIGHT) goalY = GridEnvironment.GRID_HEIGHT - 1;
+        int startX = Math.max(0, Math.min(GridEnvironment.GRID_WIDTH - 1, GridEnvironment.toGridX(x)));
+        int startY = Math.max(0, Math.min(GridEnvironment.GRID_HEIGHT - 1, GridEnvironment.toGridY(y)));
+        int goalX = Math.max(0, Math.min(GridEnvironment.GRID_WIDTH - 1, GridEnvironment.toGridX(targetX)));
+        int goalY = Math.max(0, Math.min(GridEnvironment.GRID_HEIGHT - 1, GridEnvironment.toGridY(targetY)));
+        
+        releaseWindow();
         
-        currentPath = AStarPathfinding.findPath(startX, startY, goalX, goalY);
+        // Static destinations have a precomputed flow field: no path search needed
+        FlowField field = GridEnvironment.getFlowField(goalX, goalY);
+        goalField = null;
+        if (field == null && ReservationTable.isEnabled() &&
+            AStarPathfinding.getStrategy() != AStarPathfinding.Strategy.HIERARCHICAL) {
+            // Cooperative planning needs true distances to the goal as its heuristic
+            goalField = GridEnvironment.getGoalField(goalX, goalY);
+            field = goalField;
+        }
+        if (field != null && field.isReachable(startX, startY)) {
+            flowGoalCell = field.getGoalCell();
+            route = null;
+            pendingPath = null;
+            currentPath = PackedPath.EMPTY;
+            currentPathIndex = 0;
+            isMoving = true;
+            FlowField startField = field;
+            tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | Starting movement from (" + startX + "," + startY + ") to (" + goalX + "," + goalY + ") - Flow field distance: " + startField.distance(startX, startY));
+            return;
+        }
+        
+        flowGoalCell = -1;
+        route = null;
+        replanner = null;
+        pendingPath = null;
+        pathVersion = GridEnvironment.getOccupancyMap().getVersion();
+        if (AStarPathfinding.getStrategy() == AStarPathfinding.Strategy.HIERARCHICAL) {
+            // Plan on the cluster graph; cells are refined one segment at a time while walking
+            route = GridEnvironment.getHierarchicalPathfinder().plan(startX, startY, goalX, goalY);
+            currentPath = route != null ? PackedPath.of(route.nextSegment(), GridEnvironment.GRID_WIDTH) : PackedPath.EMPTY;
+        } else {
+            PathPlanningService.PathRequest request = PathPlanningService.getInstance().request(startX, startY, goalX, goalY);
+            if (!request.isDone()) {
+                // Solved together with the other agents' requests before the next tick
+                pendingPath = request;
+                currentPath = PackedPath.EMPTY;
+                currentPathIndex = 0;
+                isMoving = true;
+                return;
+            }
+            currentPath = request.getPath();
+        }
         currentPathIndex = 0;
         isMoving = !currentPath.isEmpty();
         
         if (isMoving) {
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Starting movement from (" + startX + "," + startY + ") to (" + goalX + "," + goalY + ") - Path length: " + currentPath.size());
+            int pathLength = route != null ? route.getEstimatedLength() + 1 : currentPath.size();
+            tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | Starting movement from (" + startX + "," + startY + ") to (" + goalX + "," + goalY + ") - Path length: " + pathLength);
         } else {
-            System.out.println("[DEBUG] " + getDebugInfo() + " | No path found from (" + startX + "," + startY + ") to (" + goalX + "," + goalY + ")");
+            tracer().warn(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | No path found from (" + startX + "," + startY + ") to (" + goalX + "," + goalY + ")");
         }
     }
     
@@ -232,30 +292,206 @@ public abstract class BaseAgent extends Agent implements TickSystem.TickListener
      * Update agent position based on current path (called on each tick)
      */
     public void updateMovement() {
+        if (isMoving && flowGoalCell >= 0) {
+            updateFlowFieldMovement();
+            return;
+        }
+        
+        if (isMoving && pendingPath != null) {
+            if (!pendingPath.isDone()) {
+                return;
+            }
+            currentPath = pendingPath.getPath();
+            currentPathIndex = 0;
+            pendingPath = null;
+            if (currentPath.isEmpty()) {
+                isMoving = false;
+                tracer().warn(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | No path found to (" + GridEnvironment.toGridX(targetX) + "," + GridEnvironment.toGridY(targetY) + ")");
+                return;
+            }
+            int last = currentPath.size() - 1;
+            tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | Starting movement from (" + currentPath.getX(0) + "," + currentPath.getY(0) + ") to (" + currentPath.getX(last) + "," + currentPath.getY(last) + ") - Path length: " + currentPath.size());
+        }
+        
         if (!isMoving || currentPath == null || currentPathIndex >= currentPath.size()) {
             isMoving = false;
             return;
         }
         
+        if (route == null && GridEnvironment.getOccupancyMap().getVersion() != pathVersion) {
+            repairPath();
+            if (!isMoving) {
+                return;
+            }
+        }
+        
         // Move to next position in path
-        int[] nextPos = currentPath.get(currentPathIndex);
-        x = nextPos[0];
-        y = nextPos[1];
+        int nextCell = currentPath.getCell(currentPathIndex);
+        x = nextCell % GridEnvironment.GRID_WIDTH;
+        y = nextCell / GridEnvironment.GRID_WIDTH;
         currentPathIndex++;
         
         // Check if reached destination
         if (currentPathIndex >= currentPath.size()) {
+            if (route != null && route.hasNextSegment()) {
+                currentPath = PackedPath.of(route.nextSegment(), GridEnvironment.GRID_WIDTH);
+                currentPathIndex = 0;
+                if (currentPath.isEmpty()) {
+                    // Segment got blocked since the route was planned
+                    isMoving = false;
+                    moveTo(targetX, targetY);
+                }
+                return;
+            }
+            finishMovement();
+        }
+    }
+    
+    /**
+     * The grid changed while walking. Keep following currentPath if it is still clear,
+     * otherwise repair it with this agent's D* Lite planner: the first repair searches
+     * once, later ones only redo the part of the search the changed cells affect.
+     */
+    private void repairPath() {
+        OccupancyMap map = GridEnvironment.getOccupancyMap();
+        int gridX = GridEnvironment.toGridX(x);
+        int gridY = GridEnvironment.toGridY(y);
+        int goalX = currentPath.getX(currentPath.size() - 1);
+        int goalY = currentPath.getY(currentPath.size() - 1);
+        
+        if (replanner == null) {
+            int version = map.getVersion();
+            boolean clear = true;
+            for (int i = currentPathIndex; i < currentPath.size() - 1 && clear; i++) {
+                clear = map.isWalkable(currentPath.getX(i), currentPath.getY(i));
+            }
+            if (clear) {
+                pathVersion = version;
+                return;
+            }
+            replanner = new DStarLite(map, gridX, gridY, goalX, goalY);
+        } else {
+            replanner.setStart(gridX, gridY);
+            replanner.update();
+        }
+        pathVersion = replanner.getSyncedVersion();
+        
+        PackedPath repaired = PackedPath.of(replanner.extractPath(), map.getWidth());
+        if (repaired.isEmpty()) {
+            // No way around: keep walking the old path rather than stranding the agent
+            tracer().warn(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | Path to (" + goalX + "," + goalY + ") blocked, no way around");
+            return;
+        }
+        currentPath = repaired;
+        currentPathIndex = Math.min(1, currentPath.size() - 1); // Index 0 is the current cell
+        tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | Repaired path to (" + goalX + "," + goalY + ") - Path length: " + currentPath.size());
+    }
+    
+    /**
+     * Take one step along the flow field towards flowGoalCell
+     */
+    private void updateFlowFieldMovement() {
+        int gridX = GridEnvironment.toGridX(x);
+        int gridY = GridEnvironment.toGridY(y);
+        int cell = GridEnvironment.toCell(gridX, gridY);
+        if (cell == flowGoalCell) {
+            finishMovement();
+            return;
+        }
+        
+        FlowField field = getGoalField();
+        int next = -1;
+        if (field != null && GridEnvironment.isValidPosition(gridX, gridY)) {
+            next = ReservationTable.isEnabled() ? nextCooperativeCell(gridX, gridY, field) : field.nextCell(cell);
+        }
+        if (next < 0) {
+            // Field no longer leads anywhere from here: fall back to a path search
+            flowGoalCell = -1;
             isMoving = false;
-            // Clamp to grid
-            if (targetX < 0) targetX = 0;
-            if (targetX >= GridEnvironment.GRID_WIDTH) targetX = GridEnvironment.GRID_WIDTH - 1;
-            if (targetY < 0) targetY = 0;
-            if (targetY >= GridEnvironment.GRID_HEIGHT) targetY = GridEnvironment.GRID_HEIGHT - 1;
-            x = targetX;
-            y = targetY;
-            System.out.println("[DEBUG] " + getDebugInfo() + " | Reached destination (" + targetX + "," + targetY + ")");
-            onMovementFinished();
+            moveTo(targetX, targetY);
+            return;
+        }
+        x = next % GridEnvironment.GRID_WIDTH;
+        y = next / GridEnvironment.GRID_WIDTH;
+    }
+    
+    /**
+     * Get the distance field leading to flowGoalCell
+     */
+    private FlowField getGoalField() {
+        int goalX = flowGoalCell % GridEnvironment.GRID_WIDTH;
+        int goalY = flowGoalCell / GridEnvironment.GRID_WIDTH;
+        FlowField field = GridEnvironment.getFlowField(goalX, goalY);
+        if (field != null) {
+            return field;
+        }
+        if (goalField == null || goalField.getGoalCell() != flowGoalCell || goalField.isStale()) {
+            goalField = GridEnvironment.getGoalField(goalX, goalY); // Missing after migration or outdated by a map change
+        }
+        return goalField;
+    }
+    
+    /**
+     * Get the next cell from the reserved window, planning a new window with
+     * cooperative A* when the current one is used up or no longer matches our position
+     * @return Next cell (the current cell when waiting), or -1 if the goal is unreachable
+     */
+    private int nextCooperativeCell(int gridX, int gridY, FlowField field) {
+        long tick = TickSystem.getInstance().getCurrentTick();
+        int cell = GridEnvironment.toCell(gridX, gridY);
+        int index = window != null ? (int) (tick - windowTick) : -1;
+        if (index < 1 || index >= window.length || index > ReservationTable.REPLAN_INTERVAL || window[index - 1] != cell ||
+            window[window.length - 1] == window[0] ||  // Waiting: look for a way again every tick
+            !ReservationTable.getInstance().holds(reservationId, window[index], tick, field.getGoalCell())) {
+            releaseWindow();
+            windowTick = tick - 1;
+            window = CooperativePathfinding.planWindow(reservationId, gridX, gridY, field, windowTick);
+            if (window == null) {
+                return -1;
+            }
+            index = 1;
+        }
+        return window[index];
+    }
+    
+    /**
+     * Drop this agent's reservations, including the cell it parked on
+     */
+    private void releaseWindow() {
+        if (window != null) {
+            ReservationTable.getInstance().release(reservationId, window, windowTick);
+            window = null;
+        }
+        if (parkedCell >= 0) {
+            ReservationTable.getInstance().unpark(reservationId, parkedCell);
+            parkedCell = -1;
+        }
+    }
+    
+    /**
+     * Snap to the target and notify subclasses that movement is over
+     */
+    private void finishMovement() {
+        isMoving = false;
+        flowGoalCell = -1;
+        route = null;
+        replanner = null;
+        pendingPath = null;
+        releaseWindow();
+        // Clamp to grid
+        if (targetX < 0) targetX = 0;
+        if (targetX >= GridEnvironment.GRID_WIDTH) targetX = GridEnvironment.GRID_WIDTH - 1;
+        if (targetY < 0) targetY = 0;
+        if (targetY >= GridEnvironment.GRID_HEIGHT) targetY = GridEnvironment.GRID_HEIGHT - 1;
+        x = targetX;
+        y = targetY;
+        if (ReservationTable.isEnabled()) {
+            // Keep the cell while standing here, so moving agents plan around it
+            parkedCell = GridEnvironment.toCell(GridEnvironment.toGridX(x), GridEnvironment.toGridY(y));
+            ReservationTable.getInstance().park(reservationId, parkedCell);
         }
+        tracer().debug(Trace.Category.MOVEMENT, () -> getDebugInfo() + " | Reached destination (" + targetX + "," + targetY + ")");
+        movementFinished = true; // onMovementFinished runs in the DECIDE phase, after every agent has moved
     }
     
     /**
@@ -286,7 +522,8 @@ public abstract class BaseAgent extends Agent implements TickSystem.TickListener
             
             if (targetContainerID != null) {
                 String currentContainer = getCurrentContainerName();
-                System.out.println("[DEBUG] " + getDebugInfo() + " | Moving to container: " + containerName);
+                tracer().debug(Trace.Category.MIGRATION, () -> getDebugInfo() + " | Moving to container: " + containerName);
+                TickSystem.getInstance().migrationStarted(getLocalName());
                 doMove(targetContainerID);
                 // Non-blocking: we return true immediately. 
                 // Any post-move logic should be in afterMove() override.
@@ -308,7 +545,8 @@ public abstract class BaseAgent extends Agent implements TickSystem.TickListener
     @Override
     protected void beforeMove() {
         TickSystem.getInstance().removeListener(this);
-        System.out.println("[DEBUG] " + getLocalName() + " | Removed self from tick listeners before moving from " + getCurrentContainerName());
+        releaseWindow(); // Reservations are cells of this container's grid
+        tracer().debug(Trace.Category.MIGRATION, () -> getLocalName() + " | Removed self from tick listeners before moving from " + getCurrentContainerName());
         super.beforeMove();
     }
 
@@ -318,62 +556,162 @@ public abstract class BaseAgent extends Agent implements TickSystem.TickListener
     @Override
     protected void afterMove() {
         super.afterMove();
+        publishedContainer = null;
         TickSystem.getInstance().addListener(this);
-        System.out.println("[DEBUG] " + getLocalName() + " | Re-added self to tick listeners after moving to " + getCurrentContainerName());
-        System.out.println("[DEBUG] " + getLocalName() + " | Successfully moved to " + getCurrentContainerName());
+        // Runs once the subclass afterMove is done, so messages it sends count as part of the move
+        addBehaviour(new jade.core.behaviours.OneShotBehaviour(this) {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public void action() {
+                TickSystem.getInstance().migrationFinished(getLocalName());
+            }
+        });
+        tracer().debug(Trace.Category.MIGRATION, () -> getLocalName() + " | Re-added self to tick listeners after moving to " + getCurrentContainerName());
+        tracer().debug(Trace.Category.MIGRATION, () -> getLocalName() + " | Successfully moved to " + getCurrentContainerName());
     }
 
     /**
-     * Implementation of TickListener interface
+     * Implementation of TickListener interface: runs all phases of a tick in order
      */
     @Override
     public void onTick(long tick) {
-        if (isMoving()) {
-            updateMovement();
-        }
-        
-        // Throttled API updates
-        if (tick % UPDATE_INTERVAL_TICKS == 0) {
-            sendStateToAPI();
+        for (TickSystem.Phase phase : TickSystem.Phase.values()) {
+            onPhase(phase, tick);
         }
     }
     
     /**
-     * Send current agent state to the Flask REST API
+     * MOVE advances along the path, DECIDE handles arrivals, PUBLISH queues the
+     * throttled API update
      */
-    protected void sendStateToAPI() {
-        new Thread(() -> {
-            HttpURLConnection conn = null;
-            try {
-                URL url = new URL(API_URL);
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("POST");
-                conn.setRequestProperty("Content-Type", "application/json");
-                conn.setDoOutput(true);
-                conn.setConnectTimeout(1000);
-                conn.setReadTimeout(1000);
-
-                String type = getClass().getSimpleName().replace("Agent", "").toLowerCase();
-                String json = String.format(
-                    "{\"id\":\"%s\", \"type\":\"%s\", \"x\":%.2f, \"y\":%.2f, \"status\":\"%s\", \"container\":\"%s\"}",
-                    getLocalName(), type, x, y, (status != null ? status : "IDLE"), getCurrentContainerName()
-                );
-
-                try (OutputStream os = conn.getOutputStream()) {
-                    byte[] input = json.getBytes(StandardCharsets.UTF_8);
-                    os.write(input, 0, input.length);
+    @Override
+    public void onPhase(TickSystem.Phase phase, long tick) {
+        switch (phase) {
+            case MOVE:
+                if (isMoving()) {
+                    updateMovement();
                 }
-
-                int code = conn.getResponseCode();
-                // We don't necessarily need to check the code here to keep it non-blocking and silent
-            } catch (Exception e) {
-                // Fail silently to avoid console spam if API is down
-            } finally {
-                if (conn != null) {
-                    conn.disconnect();
+                break;
+            case DECIDE:
+                if (movementFinished) {
+                    movementFinished = false;
+                    onMovementFinished();
+                    TickSystem.getInstance().settle(); // Deterministic mode: let the reaction finish before the next agent decides
                 }
-            }
-        }).start();
+                break;
+            case PUBLISH:
+                if (TickSystem.getInstance().isVirtualTime()) {
+                    // Ticks are not tied to wall time: throttle by wall time so the dashboard is not flooded
+                    long now = System.nanoTime();
+                    if (now - lastUpdateNanos >= VIRTUAL_UPDATE_INTERVAL_NANOS) {
+                        lastUpdateNanos = now;
+                        publishIfChanged();
+                    }
+                } else if (tick % UPDATE_INTERVAL_TICKS == 0) {
+                    publishIfChanged();
+                }
+                break;
+        }
+    }
+    
+    /**
+     * The agent is still busy while it has unread messages. Messages that stay in the
+     * queue for QUIESCENCE_TIMEOUT_NANOS without the size changing are taken as never
+     * matched by a behaviour and no longer count, until the queue drops below them.
+     */
+    @Override
+    public boolean hasPendingWork() {
+        int size = getCurQueueSize();
+        long now = System.nanoTime();
+        if (size != lastQueueSize) {
+            lastQueueSize = size;
+            queueUnchangedSince = now;
+        } else if (size > stuckMessages && now - queueUnchangedSince > TickSystem.QUIESCENCE_TIMEOUT_NANOS) {
+            stuckMessages = size;
+        }
+        if (size < stuckMessages) {
+            stuckMessages = size;
+        }
+        return size > stuckMessages;
+    }
+    
+    /**
+     * Shard agents by type and container, so agents that interact most tick on the same thread.
+     * In deterministic mode the name is added, so agents run in name order, not registration order.
+     */
+    @Override
+    public String getShardKey() {
+        String key = getClass().getSimpleName() + "@" + getCurrentContainerName();
+        return TickSystem.getInstance().isDeterministic() ? key + "/" + getLocalName() : key;
+    }
+    
+    /**
+     * Get this agent's random stream (derived from the master seed and the agent name)
+     */
+    protected java.util.Random getRandom() {
+        if (random == null) {
+            random = DeterministicRun.getInstance().randomFor(getLocalName());
+        }
+        return random;
+    }
+    
+    /**
+     * Send current agent state to the Flask REST API (queued on the StatePublisher,
+     * replacing any state of this agent not sent yet)
+     */
+    protected void sendStateToAPI() {
+        AgentState state = buildState();
+        lastPublished = state;
+        lastPublishNanos = System.nanoTime();
+        StatePublisher.getInstance().publish(state);
+    }
+    
+    /**
+     * Publish only if position, status or container changed since the last publish,
+     * or as a heartbeat so the API does not drop an agent that stands still
+     */
+    private void publishIfChanged() {
+        AgentState last = lastPublished;
+        if (last != null && last.matches(x, y, status != null ? status.toString() : "IDLE", getPublishedContainer())
+                && System.nanoTime() - lastPublishNanos < HEARTBEAT_INTERVAL_NANOS) {
+            return;
+        }
+        sendStateToAPI();
+    }
+    
+    /**
+     * Get current agent state as shown on the dashboard
+     */
+    protected AgentState buildState() {
+        return new AgentState(getLocalName(), getTypeName(), x, y, status != null ? status.toString() : "IDLE", getPublishedContainer());
+    }
+    
+    /**
+     * Get the agent type as shown on the dashboard and used for trace levels (e.g. "client")
+     */
+    protected String getTypeName() {
+        if (publishedType == null) {
+            publishedType = getClass().getSimpleName().replace("Agent", "").toLowerCase();
+        }
+        return publishedType;
+    }
+    
+    /**
+     * Get the console tracer of this agent's type
+     */
+    protected Trace.Tracer tracer() {
+        if (tracer == null) {
+            tracer = Trace.forType(getTypeName());
+        }
+        return tracer;
+    }
+    
+    private String getPublishedContainer() {
+        if (publishedContainer == null) {
+            publishedContainer = getCurrentContainerName();
+        }
+        return publishedContainer;
     }
     
     /**
@@ -384,24 +722,12 @@ public abstract class BaseAgent extends Agent implements TickSystem.TickListener
     protected void takeDown() {
         // Deregister from tick system
         TickSystem.getInstance().removeListener(this);
+        releaseWindow();
         
         // Notify API to remove this agent from dashboard
-        new Thread(() -> {
-            try {
-                String removeUrl = "http://localhost:5001/remove/" + getLocalName();
-                java.net.URL url = new java.net.URL(removeUrl);
-                java.net.HttpURLConnection conn = (java.net.HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("POST");
-                conn.setConnectTimeout(1000);
-                conn.setReadTimeout(1000);
-                conn.getResponseCode();
-                conn.disconnect();
-            } catch (Exception e) {
-                // Fail silently
-            }
-        }).start();
+        StatePublisher.getInstance().remove(getLocalName());
         
-        System.out.println("[DEBUG] " + getLocalName() + " | Agent destroyed and removed from dashboard");
+        tracer().debug(Trace.Category.LIFECYCLE, () -> getLocalName() + " | Agent destroyed and removed from dashboard");
         super.takeDown();
     }
     
@@ -0,0 +1,171 @@
+package mas.core;
+
+import java.util.Arrays;
+
+/**
+ * Windowed cooperative A* (WHCA*).
+ * Searches in space-time for the next ReservationTable.WINDOW ticks, treating cells
+ * reserved by other agents as blocked at the tick they are reserved, and waiting in place
+ * when needed. Beyond the window the remaining distance comes from a flow field (true
+ * distance to the goal, ignoring other agents). The search reads the striped
+ * ReservationTable directly, so agents on different threads plan in parallel; the result
+ * is reserved with reserveIfFree(), which locks only the window's cells, and is planned
+ * again if another agent reserved a conflicting cell meanwhile.
+ */
+public class CooperativePathfinding {
+    
+    // Neighbor offsets (4-directional movement) plus waiting in place
+    private static final int[] DX = {0, 1, 0, -1, 0};
+    private static final int[] DY = {-1, 0, 1, 0, 0};
+    private static final int MAX_ATTEMPTS = 3;  // Plans that lose a reservation race before the agent waits a tick
+    
+    private static final ThreadLocal<Workspace> WORKSPACE =
+        ThreadLocal.withInitial(Workspace::new);
+    
+    /**
+     * Per-thread search state, reused between searches
+     */
+    private static final class Workspace {
+        final IntIntMap parent = new IntIntMap();  // State -> state it was reached from
+        long[] heap = new long[256];               // Entries (f << 32 | state), smallest first
+        int heapSize;
+        
+        void push(long entry) {
+            if (heapSize == heap.length) {
+                heap = java.util.Arrays.copyOf(heap, heapSize * 2);
+            }
+            int pos = heapSize++;
+            while (pos > 0) {
+                int up = (pos - 1) >>> 1;
+                if (heap[up] <= entry) {
+                    break;
+                }
+                heap[pos] = heap[up];
+                pos = up;
+            }
+            heap[pos] = entry;
+        }
+        
+        long pop() {
+            long top = heap[0];
+            long last = heap[--heapSize];
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (last <= heap[child]) {
+                    break;
+                }
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = last;
+            return top;
+        }
+    }
+    
+    /**
+     * Plan and reserve the next window for an agent
+     * @param agentId Agent id from ReservationTable.nextAgentId()
+     * @param startX Current X coordinate (position at baseTick)
+     * @param startY Current Y coordinate (position at baseTick)
+     * @param field Flow field leading to the goal
+     * @param baseTick Tick of the current position
+     * @return Cells to stand on at baseTick, baseTick + 1, ... (index 0 is the start; every
+     *         cell is the start when the agent has to wait), or null if the goal cannot be
+     *         reached from the start
+     */
+    public static int[] planWindow(int agentId, int startX, int startY, FlowField field, long baseTick) {
+        if (!field.isReachable(startX, startY)) {
+            return null;
+        }
+        Workspace ws = WORKSPACE.get();
+        ReservationTable table = ReservationTable.getInstance();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int[] cells = search(ws, table, agentId, startX, startY, field, baseTick);
+            if (cells.length < 2) {
+                break; // Boxed in by other agents
+            }
+            if (table.reserveIfFree(agentId, cells, baseTick)) {
+                return cells;
+            }
+        }
+        // Wait: a standing agent keeps its cell for the whole window, so nobody plans through it
+        int[] cells = new int[ReservationTable.WINDOW + 1];
+        Arrays.fill(cells, GridEnvironment.toCell(startX, startY));
+        table.reserve(agentId, cells, baseTick);
+        return cells;
+    }
+    
+    /**
+     * Space-time A* reading the reservation table
+     */
+    private static int[] search(Workspace ws, ReservationTable table, int agentId, int startX, int startY, FlowField field, long baseTick) {
+        OccupancyMap map = GridEnvironment.getOccupancyMap();
+        int width = map.getWidth();
+        int goal = field.getGoalCell();
+        int depths = ReservationTable.WINDOW + 1;
+        
+        // State = (cell, depth); every action, waiting included, costs one tick
+        IntIntMap parent = ws.parent;
+        parent.clear();
+        ws.heapSize = 0;
+        int startState = (startY * width + startX) * depths;
+        parent.put(startState, startState);
+        ws.push(entry(field.distance(startX, startY), startState));
+        
+        int best = startState;
+        while (ws.heapSize > 0) {
+            int state = (int) ws.pop();
+            int cell = state / depths;
+            int depth = state % depths;
+            if (cell == goal || depth == ReservationTable.WINDOW) {
+                best = state;
+                break;
+            }
+            
+            int cx = cell % width;
+            int cy = cell / width;
+            long tick = baseTick + depth;
+            for (int i = 0; i < 5; i++) {
+                int nx = cx + DX[i];
+                int ny = cy + DY[i];
+                int next = ny * width + nx;
+                if (i < 4 && !map.isWalkable(nx, ny) && !(next == goal && map.inBounds(nx, ny))) {
+                    continue;
+                }
+                int distance = field.distance(nx, ny);
+                if (distance < 0 || !table.canMove(cell, next, tick, agentId)) {
+                    continue;
+                }
+                if (next != cell && next != goal && table.isParkedByOther(next, agentId)) {
+                    continue; // Agents stopped at their destination only share it with agents heading there
+                }
+                int nextState = next * depths + depth + 1;
+                if (parent.get(nextState, -1) >= 0) {
+                    continue;
+                }
+                parent.put(nextState, state);
+                ws.push(entry(depth + 1 + distance, nextState));
+            }
+        }
+        
+        // If every option was reserved, best is still the start: the agent waits and plans again
+        int length = best % depths + 1;
+        int[] cells = new int[length];
+        for (int state = best, i = length - 1; i >= 0; i--) {
+            cells[i] = state / depths;
+            state = parent.get(state, state);
+        }
+        return cells;
+    }
+    
+    private static long entry(int f, int state) {
+        return ((long) f << 32) | state;
+    }
+}
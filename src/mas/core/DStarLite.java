@@ -0,0 +1,386 @@
+package mas.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * D* Lite incremental planner for one agent and one goal.
+ * The search runs backwards from the goal and keeps its state (g / rhs values and the
+ * open queue) between calls. When cells of the OccupancyMap toggle, update() only
+ * repairs the part of the search those cells affect, so re-planning costs scale with
+ * the size of the change instead of the size of the map.
+ * State is kept in open-addressing hash maps, so memory follows the explored area.
+ * Not thread-safe: each agent owns its own planner.
+ */
+public class DStarLite {
+    
+    private static final int INF = Integer.MAX_VALUE / 2;
+    
+    // Neighbor offsets (4-directional movement), same order as AStarPathfinding
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    
+    private final OccupancyMap map;
+    private final int width;
+    private final int goal;
+    private int start;
+    private int lastStart; // Start when km was last updated
+    private int km;        // Key modifier: heuristic drift since the search started
+    private int syncedVersion;
+    
+    private final IntIntMap g = new IntIntMap();
+    private final IntIntMap rhs = new IntIntMap();
+    private final IntIntMap openStamp = new IntIntMap(); // Cell -> stamp of its live queue entry
+    private int nextStamp = 1;
+    
+    // Binary heap with lazy deletion; an entry is live while openStamp still maps its cell to its stamp
+    private long[] heapKeys = new long[64];
+    private int[] heapCells = new int[64];
+    private int[] heapStamps = new int[64];
+    private int heapSize;
+    
+    private final int[] changes = new int[OccupancyMap.CHANGE_LOG_SIZE];
+    private int expanded;
+    
+    /**
+     * Create a planner and run the initial search
+     * @param map Walkable map to plan on
+     * @param startX Start X coordinate
+     * @param startY Start Y coordinate
+     * @param goalX Goal X coordinate
+     * @param goalY Goal Y coordinate
+     */
+    public DStarLite(OccupancyMap map, int startX, int startY, int goalX, int goalY) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.goal = goalY * width + goalX;
+        this.start = startY * width + startX;
+        initialize();
+    }
+    
+    /**
+     * Start over: clear all search state and search from scratch
+     */
+    private void initialize() {
+        syncedVersion = map.getVersion();
+        g.clear();
+        rhs.clear();
+        openStamp.clear();
+        heapSize = 0;
+        km = 0;
+        lastStart = start;
+        rhs.put(goal, 0);
+        insert(goal, key(goal));
+        computeShortestPath();
+    }
+    
+    /**
+     * Move the start to the agent's current cell (call after every step)
+     */
+    public void setStart(int x, int y) {
+        start = y * width + x;
+    }
+    
+    /**
+     * Apply the map changes made since the last call and repair the search
+     * @return Number of changed cells processed, or -1 if the planner had to start over
+     */
+    public int update() {
+        int version = map.getVersion();
+        if (version == syncedVersion) {
+            return 0;
+        }
+        int count = map.changesSince(syncedVersion, changes);
+        if (count < 0) {
+            initialize();
+            return -1;
+        }
+        syncedVersion += count;
+        
+        km += heuristic(lastStart, start);
+        lastStart = start;
+        for (int i = 0; i < count; i++) {
+            // Only edges entering the changed cell changed cost; fix its neighbors' rhs
+            int cell = changes[i];
+            int cx = cell % width;
+            int cy = cell / width;
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (map.inBounds(nx, ny)) {
+                    int neighbor = ny * width + nx;
+                    if (neighbor != goal) {
+                        rhs.put(neighbor, bestSuccessorCost(neighbor));
+                        updateVertex(neighbor);
+                    }
+                }
+            }
+        }
+        computeShortestPath();
+        return count;
+    }
+    
+    /**
+     * Get the map version this planner is synchronized with
+     */
+    public int getSyncedVersion() {
+        return syncedVersion;
+    }
+    
+    /**
+     * Get number of nodes expanded since the planner was created (diagnostics)
+     */
+    public int getExpandedNodes() {
+        return expanded;
+    }
+    
+    /**
+     * Check if the goal can be reached from the current start
+     */
+    public boolean hasPath() {
+        return g.get(start, INF) < INF || rhs.get(start, INF) < INF;
+    }
+    
+    /**
+     * Follow the cheapest successors from the start to the goal
+     * @return Path points from start to goal inclusive, or empty list if no path found
+     */
+    public List<int[]> extractPath() {
+        List<int[]> path = new ArrayList<>();
+        if (!hasPath()) {
+            return path;
+        }
+        int cell = start;
+        int maxSteps = width * map.getHeight();
+        path.add(new int[]{cell % width, cell / width});
+        while (cell != goal && path.size() <= maxSteps) {
+            int next = -1;
+            int best = INF;
+            int cx = cell % width;
+            int cy = cell / width;
+            for (int d = 0; d < 4; d++) {
+                int nx = cx + DX[d];
+                int ny = cy + DY[d];
+                if (!map.inBounds(nx, ny)) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                int cost = add(cost(neighbor), g.get(neighbor, INF));
+                if (cost < best) {
+                    best = cost;
+                    next = neighbor;
+                }
+            }
+            if (next < 0) {
+                return new ArrayList<>();
+            }
+            cell = next;
+            path.add(new int[]{cell % width, cell / width});
+        }
+        return cell == goal ? path : new ArrayList<>();
+    }
+    
+    private void computeShortestPath() {
+        while (true) {
+            int top = peek();
+            if (top < 0) {
+                return;
+            }
+            long topKey = heapKeys[0];
+            int gStart = g.get(start, INF);
+            int rhsStart = rhs.get(start, INF);
+            if (topKey >= key(start) && rhsStart <= gStart) {
+                return;
+            }
+            pop();
+            expanded++;
+            
+            long newKey = key(top);
+            int gTop = g.get(top, INF);
+            int rhsTop = rhs.get(top, INF);
+            if (topKey < newKey) {
+                insert(top, newKey);
+            } else if (gTop > rhsTop) {
+                // Overconsistent: settle the cell and relax its predecessors
+                g.put(top, rhsTop);
+                forEachNeighbor(top, neighbor -> {
+                    if (neighbor != goal) {
+                        int via = add(cost(top), rhsTop);
+                        if (via < rhs.get(neighbor, INF)) {
+                            rhs.put(neighbor, via);
+                        }
+                        updateVertex(neighbor);
+                    }
+                });
+            } else {
+                // Underconsistent: raise the cell and recompute everything that relied on it
+                int gOld = gTop;
+                g.remove(top);
+                forEachNeighbor(top, neighbor -> {
+                    if (neighbor != goal && rhs.get(neighbor, INF) == add(cost(top), gOld)) {
+                        rhs.put(neighbor, bestSuccessorCost(neighbor));
+                    }
+                    updateVertex(neighbor);
+                });
+                if (top != goal) {
+                    rhs.put(top, bestSuccessorCost(top));
+                }
+                updateVertex(top);
+            }
+        }
+    }
+    
+    private interface CellAction {
+        void apply(int cell);
+    }
+    
+    private void forEachNeighbor(int cell, CellAction action) {
+        int cx = cell % width;
+        int cy = cell / width;
+        for (int d = 0; d < 4; d++) {
+            int nx = cx + DX[d];
+            int ny = cy + DY[d];
+            if (map.inBounds(nx, ny)) {
+                action.apply(ny * width + nx);
+            }
+        }
+    }
+    
+    /**
+     * Lowest cost of reaching the goal through one of the cell's successors
+     */
+    private int bestSuccessorCost(int cell) {
+        int best = INF;
+        int cx = cell % width;
+        int cy = cell / width;
+        for (int d = 0; d < 4; d++) {
+            int nx = cx + DX[d];
+            int ny = cy + DY[d];
+            if (map.inBounds(nx, ny)) {
+                int neighbor = ny * width + nx;
+                best = Math.min(best, add(cost(neighbor), g.get(neighbor, INF)));
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Cost of stepping into a cell: blocked cells are impassable, except the goal
+     * (it may be an occupied seat the agent is heading to)
+     */
+    private int cost(int cell) {
+        if (cell == goal) {
+            return 1;
+        }
+        return map.isWalkable(cell % width, cell / width) ? 1 : INF;
+    }
+    
+    private void updateVertex(int cell) {
+        int gCell = g.get(cell, INF);
+        int rhsCell = rhs.get(cell, INF);
+        if (rhsCell >= INF) {
+            rhs.remove(cell);
+        }
+        if (gCell != rhsCell) {
+            insert(cell, key(cell));
+        } else {
+            openStamp.remove(cell);
+        }
+    }
+    
+    /**
+     * Priority of a cell: (min(g, rhs) + h + km, min(g, rhs)) packed into one long
+     */
+    private long key(int cell) {
+        int m = Math.min(g.get(cell, INF), rhs.get(cell, INF));
+        if (m >= INF) {
+            return Long.MAX_VALUE;
+        }
+        return ((long) (m + heuristic(start, cell) + km) << 32) | m;
+    }
+    
+    /**
+     * Heuristic function (Manhattan distance)
+     */
+    private int heuristic(int a, int b) {
+        return Math.abs(a % width - b % width) + Math.abs(a / width - b / width);
+    }
+    
+    private static int add(int a, int b) {
+        return (a >= INF || b >= INF) ? INF : a + b;
+    }
+    
+    private void insert(int cell, long key) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+            heapStamps = Arrays.copyOf(heapStamps, heapSize * 2);
+        }
+        int stamp = nextStamp++;
+        openStamp.put(cell, stamp);
+        int pos = heapSize++;
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (heapKeys[parent] <= key) {
+                break;
+            }
+            moveEntry(parent, pos);
+            pos = parent;
+        }
+        heapKeys[pos] = key;
+        heapCells[pos] = cell;
+        heapStamps[pos] = stamp;
+    }
+    
+    /**
+     * Drop stale entries from the top of the heap
+     * @return Cell of the live top entry, or -1 if the queue is empty
+     */
+    private int peek() {
+        while (heapSize > 0) {
+            if (openStamp.get(heapCells[0], 0) == heapStamps[0]) {
+                return heapCells[0];
+            }
+            removeTop();
+        }
+        return -1;
+    }
+    
+    private void pop() {
+        openStamp.remove(heapCells[0]);
+        removeTop();
+    }
+    
+    private void removeTop() {
+        heapSize--;
+        if (heapSize == 0) {
+            return;
+        }
+        long key = heapKeys[heapSize];
+        int cell = heapCells[heapSize];
+        int stamp = heapStamps[heapSize];
+        int pos = 0;
+        int half = heapSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            moveEntry(child, pos);
+            pos = child;
+        }
+        heapKeys[pos] = key;
+        heapCells[pos] = cell;
+        heapStamps[pos] = stamp;
+    }
+    
+    private void moveEntry(int from, int to) {
+        heapKeys[to] = heapKeys[from];
+        heapCells[to] = heapCells[from];
+        heapStamps[to] = heapStamps[from];
+    }
+}
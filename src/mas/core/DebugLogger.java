@@ -1,66 +1,441 @@
 package mas.core;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Utility class for sending debug messages to the Flask API
  * for display in the web dashboard debug console.
+ *
+ * Logging does not block: a message is copied into a preallocated ring buffer and a
+ * single "DebugLogger" thread sends the buffered messages as one POST to /debug/batch
+ * (or appends them to the file given by -Dmas.debug.file). When the buffer is full
+ * new messages are dropped and counted.
+ *
+ * To keep per-order chatter from pushing everything else out of the dashboard's last
+ * 500 messages, messages below ERROR go through token buckets per agent and per message
+ * key (agent type, level and the first words of the message, digits ignored), and
+ * DEBUG/INFO/SUCCESS messages can be sampled. Suppressed messages are counted and
+ * reported in a summary message every few seconds. Set with -Dmas.debug.agentRate,
+ * -Dmas.debug.keyRate (messages per second, 0 for no limit) and -Dmas.debug.sample
+ * (fraction kept, default 1).
  */
 public class DebugLogger {
     
-    private static final String API_URL = "http://localhost:5001/debug";
-    private static boolean enabled = true;
+    private static final String API_URL = BaseAgent.API_BASE_URL + "/debug";
+    private static final String API_BATCH_URL = API_URL + "/batch";
+    private static final String LOG_FILE = System.getProperty("mas.debug.file");
+    private static final int CAPACITY = 4096;                    // Power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_BATCH = 512;
+    private static final long DRAIN_INTERVAL_NANOS = 50_000_000L;
+    private static final long RETRY_DELAY_MS = 1000;
+    private static volatile boolean enabled = true;
+    
+    private static final double AGENT_RATE = doubleProperty("mas.debug.agentRate", 2.0);
+    private static final double AGENT_BURST = 10;
+    private static final double KEY_RATE = doubleProperty("mas.debug.keyRate", 5.0);
+    private static final double KEY_BURST = 20;
+    private static final double SAMPLE_RATE = doubleProperty("mas.debug.sample", 1.0);
+    private static final int MAX_BUCKETS = 4096;                 // Buckets are forgotten past this (clients come and go)
+    private static final long SUMMARY_INTERVAL_NANOS = 5_000_000_000L;
+    private static final int SUMMARY_KEYS = 5;
     
     public enum Level {
         DEBUG, INFO, SUCCESS, WARNING, ERROR
     }
     
     /**
-     * Send a debug message to the web dashboard
+     * Preallocated message slot, written by one producer and read by the drainer
+     * (handed over through its sequence number)
      */
-    public static void log(String agentId, String agentType, String container, 
+    private static final class Slot {
+        long timestamp;
+        String agentId;
+        String agentType;
+        String container;
+        Level level;
+        String message;
+        String status;
+    }
+    
+    // Bounded multi-producer single-consumer ring: a slot is free for position p when its
+    // sequence is p, and holds a message for the drainer when its sequence is p + 1
+    private static final Slot[] slots = new Slot[CAPACITY];
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong tail = new AtomicLong();
+    private static volatile long head = 0;                       // Written by the drainer only
+    
+    private static final AtomicLong loggedCount = new AtomicLong();
+    private static final AtomicLong droppedCount = new AtomicLong();
+    private static volatile long sentCount = 0;                  // Written by the drainer only
+    private static volatile long batchCount = 0;
+    private static volatile long failedCount = 0;                // Messages lost to failed requests
+    private static final AtomicLong rateLimitedCount = new AtomicLong();
+    private static final AtomicLong sampledOutCount = new AtomicLong();
+    
+    private static final Map<String, TokenBucket> agentBuckets = new ConcurrentHashMap<>();
+    private static final Map<String, TokenBucket> keyBuckets = new ConcurrentHashMap<>();
+    private static long lastSampledOut = 0;                      // Drainer only, for the summary
+    private static long lastSummary = System.nanoTime();
+    
+    private static final StringBuilder batch = new StringBuilder(64 * 1024);
+    private static final byte[] drainBuffer = new byte[512];
+    private static final Thread drainer;
+    
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        drainer = new Thread(DebugLogger::runDrainer, "DebugLogger");
+        drainer.setDaemon(true);
+        drainer.start();
+        // Send what is still buffered when the JVM exits (e.g. the end of a headless run)
+        Runtime.getRuntime().addShutdownHook(new Thread(DebugLogger::drain, "DebugLoggerFlush"));
+    }
+    
+    /**
+     * Token bucket: refills at rate tokens per second up to burst; a message takes one
+     */
+    private static final class TokenBucket {
+        private final double rate;
+        private final double burst;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        private int suppressed = 0;                              // Since the last summary
+        
+        TokenBucket(double rate, double burst) {
+            this.rate = rate;
+            this.burst = burst;
+            this.tokens = burst;
+        }
+        
+        synchronized boolean tryTake() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) * rate / 1e9);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens--;
+                return true;
+            }
+            return false;
+        }
+        
+        synchronized void countSuppressed() {
+            suppressed++;
+        }
+        
+        synchronized int takeSuppressed() {
+            int count = suppressed;
+            suppressed = 0;
+            return count;
+        }
+    }
+    
+    /**
+     * Queue a debug message for the web dashboard
+     */
+    public static void log(String agentId, String agentType, String container,
                           Level level, String message, String status) {
         if (!enabled) return;
+        if (level != Level.ERROR && !admit(agentId, agentType, level, message)) return;
+        enqueue(agentId, agentType, container, level, message, status);
+    }
+    
+    /**
+     * Apply sampling and the rate limits
+     * @return false if the message is suppressed
+     */
+    private static boolean admit(String agentId, String agentType, Level level, String message) {
+        if (SAMPLE_RATE < 1 && level != Level.WARNING && ThreadLocalRandom.current().nextDouble() >= SAMPLE_RATE) {
+            sampledOutCount.incrementAndGet();
+            return false;
+        }
+        TokenBucket keyBucket = null;
+        if (KEY_RATE > 0) {
+            keyBucket = bucket(keyBuckets, messageKey(agentType, level, message), KEY_RATE, KEY_BURST);
+            if (!keyBucket.tryTake()) {
+                keyBucket.countSuppressed();
+                rateLimitedCount.incrementAndGet();
+                return false;
+            }
+        }
+        if (AGENT_RATE > 0 && agentId != null && !bucket(agentBuckets, agentId, AGENT_RATE, AGENT_BURST).tryTake()) {
+            if (keyBucket != null) {
+                keyBucket.countSuppressed(); // Reported under its key
+            }
+            rateLimitedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+    
+    private static TokenBucket bucket(Map<String, TokenBucket> buckets, String name, double rate, double burst) {
+        TokenBucket bucket = buckets.get(name);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_BUCKETS) {
+                buckets.clear();
+            }
+            bucket = buckets.computeIfAbsent(name, n -> new TokenBucket(rate, burst));
+        }
+        return bucket;
+    }
+    
+    /**
+     * Key of the kind of message: "chef WARNING Cooking Pizza", "exit WARNING Removing Client#"
+     */
+    static String messageKey(String agentType, Level level, String message) {
+        StringBuilder key = new StringBuilder(48).append(agentType).append(' ').append(level.name()).append(' ');
+        int words = 0;
+        boolean inNumber = false;
+        for (int i = 0; message != null && i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == ' ' && ++words == 2) {
+                break;
+            }
+            if (Character.isDigit(c)) {
+                if (!inNumber) {
+                    key.append('#');
+                }
+                inNumber = true;
+            } else {
+                key.append(c);
+                inNumber = false;
+            }
+        }
+        return key.toString();
+    }
+    
+    private static void enqueue(String agentId, String agentType, String container,
+                                Level level, String message, String status) {
+        long position = tail.get();
+        while (true) {
+            long available = sequences.get((int) position & MASK) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                droppedCount.incrementAndGet(); // Full, the drainer is behind
+                return;
+            } else {
+                position = tail.get(); // Another producer took this slot
+            }
+        }
         
+        Slot slot = slots[(int) position & MASK];
+        slot.timestamp = System.currentTimeMillis();
+        slot.agentId = agentId;
+        slot.agentType = agentType;
+        slot.container = container;
+        slot.level = level;
+        slot.message = message;
+        slot.status = status;
+        sequences.lazySet((int) position & MASK, position + 1);
+        loggedCount.incrementAndGet();
+        
+        if (position - head >= CAPACITY / 2) {
+            LockSupport.unpark(drainer); // Filling up, do not wait for the next interval
+        }
+    }
+    
+    private static void runDrainer() {
+        while (true) {
+            LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+            try {
+                if (System.nanoTime() - lastSummary >= SUMMARY_INTERVAL_NANOS) {
+                    lastSummary = System.nanoTime();
+                    summarizeSuppressed();
+                }
+                if (!drain()) {
+                    Thread.sleep(RETRY_DELAY_MS); // Messages arriving meanwhile are dropped once the buffer is full
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                // Keep the drainer alive whatever happens
+            }
+        }
+    }
+    
+    /**
+     * Queue one message telling how many messages were suppressed since the last
+     * summary, with the keys that lost the most
+     */
+    private static void summarizeSuppressed() {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, TokenBucket> entry : keyBuckets.entrySet()) {
+            int count = entry.getValue().takeSuppressed();
+            if (count > 0) {
+                counts.add(Map.entry(entry.getKey(), count));
+                total += count;
+            }
+        }
+        long sampledOut = sampledOutCount.get();
+        long sampled = sampledOut - lastSampledOut;
+        lastSampledOut = sampledOut;
+        if (total == 0 && sampled == 0) {
+            return;
+        }
+        counts.sort((a, b) -> b.getValue() - a.getValue());
+        StringBuilder summary = new StringBuilder("Suppressed ").append(total).append(" rate-limited");
+        if (sampled > 0) {
+            summary.append(" and ").append(sampled).append(" sampled-out");
+        }
+        summary.append(" messages in the last ").append(SUMMARY_INTERVAL_NANOS / 1_000_000_000L).append(" s");
+        for (int i = 0; i < counts.size() && i < SUMMARY_KEYS; i++) {
+            summary.append(i == 0 ? ": " : ", ").append(counts.get(i).getKey()).append(" x").append(counts.get(i).getValue());
+        }
+        if (counts.size() > SUMMARY_KEYS) {
+            summary.append(", ...");
+        }
+        enqueue("DebugLogger", "logger", "Main", Level.INFO, summary.toString(), "");
+    }
+    
+    /**
+     * Send everything buffered, in batches of up to MAX_BATCH messages
+     * @return false if a batch could not be sent
+     */
+    private static synchronized boolean drain() {
+        while (true) {
+            int count = takeBatch();
+            if (count == 0) {
+                return true;
+            }
+            if (!(LOG_FILE != null ? write(batch) : post(batch))) {
+                failedCount += count;
+                return false;
+            }
+            sentCount += count;
+            batchCount++;
+        }
+    }
+    
+    /**
+     * Move up to MAX_BATCH messages from the ring into the batch text
+     * (a JSON array for the API, one line per message for the file)
+     * @return number of messages taken
+     */
+    private static int takeBatch() {
+        batch.setLength(0);
+        if (LOG_FILE == null) {
+            batch.append("{\"messages\":[");
+        }
+        int count = 0;
+        long position = head;
+        while (count < MAX_BATCH && sequences.get((int) position & MASK) == position + 1) {
+            Slot slot = slots[(int) position & MASK];
+            if (LOG_FILE != null) {
+                appendLine(slot);
+            } else {
+                if (count > 0) {
+                    batch.append(',');
+                }
+                appendJson(slot);
+            }
+            slot.agentId = slot.agentType = slot.container = slot.message = slot.status = null;
+            slot.level = null;
+            sequences.lazySet((int) position & MASK, position + CAPACITY);
+            position++;
+            count++;
+        }
+        head = position;
+        if (LOG_FILE == null) {
+            batch.append("]}");
+        }
+        return count;
+    }
+    
+    private static void appendJson(Slot slot) {
+        batch.append("{\"timestamp\":").append(slot.timestamp / 1000.0);
+        batch.append(",\"agent_id\":");
+        AgentState.appendString(batch, String.valueOf(slot.agentId));
+        batch.append(",\"agent_type\":");
+        AgentState.appendString(batch, String.valueOf(slot.agentType));
+        batch.append(",\"container\":");
+        AgentState.appendString(batch, String.valueOf(slot.container));
+        batch.append(",\"level\":\"").append(slot.level.name());
+        batch.append("\",\"message\":");
+        AgentState.appendString(batch, slot.message != null ? slot.message : "");
+        batch.append(",\"status\":");
+        AgentState.appendString(batch, slot.status != null ? slot.status : "");
+        batch.append('}');
+    }
+    
+    private static void appendLine(Slot slot) {
+        batch.append(slot.timestamp).append(' ').append(slot.level.name()).append(' ')
+            .append(slot.agentId).append(" (").append(slot.agentType).append(", ").append(slot.container).append(") ")
+            .append(slot.message);
+        if (slot.status != null && !slot.status.isEmpty()) {
+            batch.append(" [").append(slot.status).append(']');
+        }
+        batch.append('\n');
+    }
+    
+    private static boolean write(CharSequence text) {
+        try (Writer writer = new FileWriter(LOG_FILE, StandardCharsets.UTF_8, true)) {
+            writer.append(text);
+            return true;
+        } catch (IOException e) {
+            System.err.println("[DebugLogger] Cannot write " + LOG_FILE + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * POST a batch and read the whole response, so the connection is kept alive
+     */
+    private static boolean post(CharSequence json) {
+        HttpURLConnection conn = null;
         try {
-            URL url = new URL(API_URL);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            conn = (HttpURLConnection) new URL(API_BATCH_URL).openConnection();
             conn.setRequestMethod("POST");
+            conn.setConnectTimeout(1000);
+            conn.setReadTimeout(1000);
             conn.setRequestProperty("Content-Type", "application/json");
             conn.setDoOutput(true);
-            
-            String jsonPayload = String.format(
-                "{\"agent_id\":\"%s\",\"agent_type\":\"%s\",\"container\":\"%s\"," +
-                "\"level\":\"%s\",\"message\":\"%s\",\"status\":\"%s\"}",
-                agentId, agentType, container, level.name(), 
-                escapeJson(message), status
-            );
-            
             try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = jsonPayload.getBytes(StandardCharsets.UTF_8);
-                os.write(input, 0, input.length);
+                os.write(json.toString().getBytes(StandardCharsets.UTF_8));
             }
-            
-            int responseCode = conn.getResponseCode();
-            if (responseCode != 200) {
-                System.err.println("[DebugLogger] Failed to send debug message: HTTP " + responseCode);
+            int code = conn.getResponseCode();
+            try (InputStream in = code < 400 ? conn.getInputStream() : conn.getErrorStream()) {
+                if (in != null) {
+                    while (in.read(drainBuffer) != -1) {
+                        // Drain
+                    }
+                }
             }
-            
-            conn.disconnect();
-            
+            return code < 400;
         } catch (Exception e) {
             // Silently fail - don't disrupt agent operation
-            // System.err.println("[DebugLogger] Error: " + e.getMessage());
+            if (conn != null) {
+                conn.disconnect();
+            }
+            return false;
         }
     }
     
     /**
      * Convenience method with default status
      */
-    public static void log(String agentId, String agentType, String container, 
+    public static void log(String agentId, String agentType, String container,
                           Level level, String message) {
         log(agentId, agentType, container, level, message, "");
     }
@@ -108,14 +483,78 @@ public class DebugLogger {
     }
     
     /**
-     * Escape special characters for JSON
+     * Check if messages go to the -Dmas.debug.file file instead of the dashboard
+     */
+    public static boolean isWritingToFile() {
+        return LOG_FILE != null;
+    }
+    
+    /**
+     * Get number of messages accepted into the buffer
+     */
+    public static long getLoggedCount() {
+        return loggedCount.get();
+    }
+    
+    /**
+     * Get number of messages dropped because the buffer was full
+     */
+    public static long getDroppedCount() {
+        return droppedCount.get();
+    }
+    
+    /**
+     * Get number of messages sent (or written to the log file)
+     */
+    public static long getSentCount() {
+        return sentCount;
+    }
+    
+    /**
+     * Get number of batches sent
+     */
+    public static long getBatchCount() {
+        return batchCount;
+    }
+    
+    /**
+     * Get number of messages lost because their batch could not be sent
+     */
+    public static long getFailedCount() {
+        return failedCount;
+    }
+    
+    /**
+     * Get number of messages suppressed by the rate limits
+     */
+    public static long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+    
+    /**
+     * Get number of messages left out by sampling
+     */
+    public static long getSampledOutCount() {
+        return sampledOutCount.get();
+    }
+    
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[DebugLogger] Invalid " + name + " '" + value + "', using " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Get number of messages waiting in the buffer
      */
-    private static String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t");
+    public static int getPendingCount() {
+        return (int) Math.max(0, tail.get() - head);
     }
 }
@@ -0,0 +1,175 @@
+package mas.core;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * DeterministicRun makes a simulation reproducible from a master seed.
+ * Every agent draws from its own random stream derived from the seed and its name,
+ * so the numbers an agent gets do not depend on thread timing. Inputs from outside
+ * the simulation (e.g. clients added from the web GUI) are applied at tick boundaries
+ * and written to a journal; replaying the journal with the same seed repeats the run.
+ *
+ * Journal format: a "SEED <seed>" line, then one "<tick> <kind> <args>" line per input.
+ */
+public class DeterministicRun {
+    private static DeterministicRun instance;
+    private static final String DEFAULT_JOURNAL = "replay-journal.txt";
+    
+    private volatile boolean enabled = false;
+    private volatile boolean replaying = false;
+    private long seed;
+    private PrintWriter journal;
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+    
+    private DeterministicRun() {
+        String value = System.getProperty("mas.seed");
+        if (value != null) {
+            try {
+                enable(Long.parseLong(value.trim()));
+                return;
+            } catch (NumberFormatException e) {
+                System.err.println("DeterministicRun: Invalid mas.seed '" + value + "', using a random seed");
+            }
+        }
+        seed = System.nanoTime() ^ 0x5DEECE66DL;
+    }
+    
+    public static synchronized DeterministicRun getInstance() {
+        if (instance == null) {
+            instance = new DeterministicRun();
+        }
+        return instance;
+    }
+    
+    /**
+     * Turn on deterministic mode with a master seed and start a new journal
+     * (written to the file given by -Dmas.journal, default replay-journal.txt)
+     */
+    public synchronized void enable(long masterSeed) {
+        seed = masterSeed;
+        enabled = true;
+        TickSystem.getInstance().setDeterministic(true);
+        String path = System.getProperty("mas.journal", DEFAULT_JOURNAL);
+        try {
+            journal = new PrintWriter(new FileWriter(path), true);
+            journal.println("SEED " + seed);
+            System.out.println("DeterministicRun: Seed " + seed + ", journal " + path);
+        } catch (IOException e) {
+            System.err.println("DeterministicRun: Cannot write journal " + path + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Turn on deterministic mode with the seed of a journal and schedule its inputs
+     * on the ticks they were recorded at; live inputs are ignored while replaying
+     */
+    public synchronized void replay(String path) throws IOException {
+        List<String[]> inputs = new ArrayList<>();
+        long journalSeed = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("SEED ")) {
+                    journalSeed = Long.parseLong(line.substring(5).trim());
+                } else {
+                    inputs.add(line.split(" ", 3));
+                }
+            }
+        }
+        seed = journalSeed;
+        enabled = true;
+        replaying = true;
+        TickSystem ticks = TickSystem.getInstance();
+        ticks.setDeterministic(true);
+        for (String[] input : inputs) {
+            String kind = input[1];
+            String args = input.length > 2 ? input[2] : "";
+            ticks.scheduleAt(Long.parseLong(input[0]), () -> apply(kind, args));
+        }
+        System.out.println("DeterministicRun: Replaying " + path + " (seed " + seed + ", " + inputs.size() + " inputs)");
+    }
+    
+    /**
+     * Register the code that applies an input kind (e.g. "CREATE_AGENT")
+     */
+    public void registerHandler(String kind, Consumer<String> handler) {
+        handlers.put(kind, handler);
+    }
+    
+    /**
+     * Submit an input from outside the simulation. In deterministic mode it is journaled
+     * and applied at the start of the next tick; otherwise it is applied right away.
+     * @return false if the input was ignored because a journal is being replayed
+     */
+    public boolean submit(String kind, String args) {
+        if (!enabled) {
+            apply(kind, args);
+            return true;
+        }
+        if (replaying) {
+            System.out.println("DeterministicRun: Ignoring live input during replay: " + kind + " " + args);
+            return false;
+        }
+        TickSystem ticks = TickSystem.getInstance();
+        synchronized (this) {
+            // Journal the tick the wheel actually chose, in case a tick started meanwhile
+            TimerWheel.Timer timer = ticks.scheduleAt(ticks.getCurrentTick() + 1, () -> apply(kind, args));
+            if (journal != null) {
+                journal.println(timer.getTick() + " " + kind + " " + args);
+            }
+        }
+        return true;
+    }
+    
+    private void apply(String kind, String args) {
+        Consumer<String> handler = handlers.get(kind);
+        if (handler == null) {
+            System.err.println("DeterministicRun: No handler for input " + kind);
+            return;
+        }
+        handler.accept(args);
+    }
+    
+    /**
+     * Get the random stream of an agent (or any other named consumer).
+     * The same seed and name always give the same sequence.
+     */
+    public Random randomFor(String name) {
+        return new Random(mix(seed + 0x9E3779B97F4A7C15L * name.hashCode()));
+    }
+    
+    /**
+     * SplitMix64 finalizer, spreads nearby seeds over unrelated streams
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public boolean isReplaying() {
+        return replaying;
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+}
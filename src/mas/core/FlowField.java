@@ -0,0 +1,164 @@
+package mas.core;
+
+import java.util.Arrays;
+
+/**
+ * FlowField holds a precomputed BFS distance field towards one fixed destination.
+ * Every cell stores the direction of its next step, so an agent anywhere on the
+ * grid can read where to go next in O(1) without running a path search.
+ * The field only crosses walkable cells of the GridEnvironment occupancy map.
+ */
+public class FlowField {
+    
+    // Neighbor offsets (4-directional movement), same order as AStarPathfinding
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    private static final byte NONE = -1;
+    
+    private final int goalX, goalY;
+    private final int width, height;
+    private final int[] distance;   // Steps to goal, -1 if unreachable
+    private final byte[] direction; // Index into DX/DY of the next step, NONE at goal/unreachable
+    private volatile boolean stale;  // A cell changed in a way that alters the field, see isStaleAfterChange()
+    
+    /**
+     * Build the field for a destination on the current grid
+     * @param goalX Goal X coordinate
+     * @param goalY Goal Y coordinate
+     */
+    public FlowField(int goalX, int goalY) {
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.width = GridEnvironment.GRID_WIDTH;
+        this.height = GridEnvironment.GRID_HEIGHT;
+        this.distance = new int[width * height];
+        this.direction = new byte[width * height];
+        build();
+    }
+    
+    /**
+     * Breadth-first search outward from the goal (every step costs 1).
+     * The goal itself is always a valid seed, even when it is occupied.
+     */
+    private void build() {
+        Arrays.fill(distance, -1);
+        Arrays.fill(direction, NONE);
+        
+        OccupancyMap map = GridEnvironment.getOccupancyMap();
+        int[] queue = new int[width * height];
+        int head = 0, tail = 0;
+        int goal = goalY * width + goalX;
+        distance[goal] = 0;
+        queue[tail++] = goal;
+        
+        while (head < tail) {
+            int cell = queue[head++];
+            int cx = cell % width;
+            int cy = cell / width;
+            for (int i = 0; i < 4; i++) {
+                int nx = cx + DX[i];
+                int ny = cy + DY[i];
+                if (!map.inBounds(nx, ny)) {
+                    continue;
+                }
+                int neighbor = ny * width + nx;
+                if (distance[neighbor] >= 0) {
+                    continue;
+                }
+                distance[neighbor] = distance[cell] + 1;
+                direction[neighbor] = (byte) opposite(i); // Step back towards the cell we came from
+                // Blocked cells get a way out (an agent may be standing on one) but are never walked through
+                if (map.isWalkable(nx, ny)) {
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Check if the field no longer matches the map after one cell changed (call after the change).
+     * A newly blocked cell only matters if some cell steps through it; a newly free cell only
+     * if it opens a shorter way to one of its neighbours.
+     */
+    public boolean isStaleAfterChange(int x, int y) {
+        OccupancyMap map = GridEnvironment.getOccupancyMap();
+        int cell = y * width + x;
+        if (cell == getGoalCell() || distance[cell] < 0) {
+            return false; // The goal is always a seed; cells cut off from the goal lead nowhere
+        }
+        boolean blocked = !map.isWalkable(x, y);
+        for (int i = 0; i < 4; i++) {
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (!map.inBounds(nx, ny)) {
+                continue;
+            }
+            int neighbor = ny * width + nx;
+            if (blocked ? nextCell(neighbor) == cell : distance[neighbor] < 0 || distance[neighbor] > distance[cell] + 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Mark the field as outdated; GridEnvironment builds a new one on next use
+     */
+    void markStale() {
+        stale = true;
+    }
+    
+    public boolean isStale() {
+        return stale;
+    }
+    
+    private static int opposite(int dir) {
+        return (dir + 2) & 3;
+    }
+    
+    public int getGoalX() {
+        return goalX;
+    }
+    
+    public int getGoalY() {
+        return goalY;
+    }
+    
+    /**
+     * Get the goal as a cell index (y * width + x)
+     */
+    public int getGoalCell() {
+        return goalY * width + goalX;
+    }
+    
+    /**
+     * Get number of steps from a cell to the goal
+     * @return Distance in steps, or -1 if the goal is unreachable from there
+     */
+    public int distance(int x, int y) {
+        if (!GridEnvironment.isValidPosition(x, y)) {
+            return -1;
+        }
+        return distance[y * width + x];
+    }
+    
+    /**
+     * Check if the goal can be reached from a cell
+     */
+    public boolean isReachable(int x, int y) {
+        return distance(x, y) >= 0;
+    }
+    
+    /**
+     * Get the next cell on the way to the goal
+     * @param cell Current cell index (y * width + x)
+     * @return Next cell index, or -1 if already at the goal or the goal is unreachable
+     */
+    public int nextCell(int cell) {
+        byte dir = direction[cell];
+        if (dir == NONE) {
+            return -1;
+        }
+        return cell + DY[dir] * width + DX[dir];
+    }
+}
@@ -1,12 +1,17 @@
 package mas.core;
 
 /**
- * GridEnvironment represents a 30x30 grid for agent movement.
- * Coordinates range from (0,0) to (29,29)
+ * GridEnvironment represents the grid for agent movement.
+ * Coordinates range from (0,0) to (GRID_WIDTH - 1, GRID_HEIGHT - 1). The size is
+ * 120x120 unless set with -Dmas.grid.size=WxH or by the layout file's "size" line.
  */
 public class GridEnvironment {
-    public static final int GRID_WIDTH = 120;
-    public static final int GRID_HEIGHT = 120;
+    public static final String DEFAULT_LAYOUT_FILE = "config/restaurant_layout.txt";
+    public static final int MIN_GRID_SIZE = 120;   // The fixed stations (exit, boss) must fit
+    public static final int MAX_GRID_SIZE = 4096;  // Keeps space-time states and frame positions in range
+    private static final int[] gridSize = configuredGridSize();
+    public static final int GRID_WIDTH = gridSize[0];
+    public static final int GRID_HEIGHT = gridSize[1];
     
     // Centralized Coordinates
     public static final double TABLE_BASE_X = 20.0;
@@ -30,6 +35,109 @@ public class GridEnvironment {
     public static final double ENTRY_X = 0.0;
     public static final double ENTRY_Y = 0.0;
     
+    // Transit points in EnvContainer (waiters, clients heading to cashier / exit)
+    public static final double WAITER_TRANSIT_X = 15.0;
+    public static final double WAITER_TRANSIT_Y = 15.0;
+    public static final double CASHIER_TRANSIT_X = 60.0;
+    public static final double CASHIER_TRANSIT_Y = 60.0;
+    public static final double EXIT_TRANSIT_X = 90.0;
+    public static final double EXIT_TRANSIT_Y = 90.0;
+    
+    public static final int TABLE_COUNT = 4;
+    
+    // Floor plan (walls and furniture), loaded from a layout file
+    private static final OccupancyMap occupancyMap = new OccupancyMap(GRID_WIDTH, GRID_HEIGHT);
+    private static final HierarchicalPathfinder hierarchicalPathfinder =
+        new HierarchicalPathfinder(occupancyMap, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE);
+    
+    // Precomputed flow fields for the static destinations, indexed by goal cell
+    private static final FlowField[] flowFields = new FlowField[GRID_WIDTH * GRID_HEIGHT];
+    private static final int[] destinationCells;
+    
+    // Flow fields for other goals (cooperative planning heuristic), built on first use
+    private static final int GOAL_FIELD_CACHE_SIZE = Math.max(4, Math.min(32, 4_000_000 / (GRID_WIDTH * GRID_HEIGHT)));
+    private static final java.util.Map<Integer, FlowField> goalFields = new java.util.LinkedHashMap<Integer, FlowField>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<Integer, FlowField> eldest) {
+            return size() > GOAL_FIELD_CACHE_SIZE;
+        }
+    };
+    
+    static {
+        double[][] destinations = {
+            {ENTRY_X, ENTRY_Y},
+            {CASHIER_X, CASHIER_Y},
+            {EXIT_X, EXIT_Y},
+            {CHEF1_X, CHEF1_Y},
+            {CHEF2_X, CHEF2_Y},
+            {WAITER_TRANSIT_X, WAITER_TRANSIT_Y},
+            {CASHIER_TRANSIT_X, CASHIER_TRANSIT_Y},
+            {EXIT_TRANSIT_X, EXIT_TRANSIT_Y}
+        };
+        destinationCells = new int[destinations.length + TABLE_COUNT];
+        for (int i = 0; i < destinations.length; i++) {
+            destinationCells[i] = toCell(toGridX(destinations[i][0]), toGridY(destinations[i][1]));
+        }
+        for (int table = 1; table <= TABLE_COUNT; table++) {
+            destinationCells[destinations.length + table - 1] = toCell(toGridX(getTableX(table)), toGridY(TABLE_Y));
+        }
+        
+        loadLayout(System.getProperty("mas.layout", DEFAULT_LAYOUT_FILE));
+    }
+    
+    /**
+     * Read the grid size from -Dmas.grid.size (WxH, or N for a square grid), otherwise
+     * from the "size W H" line of the layout file, clamped to MIN_GRID_SIZE .. MAX_GRID_SIZE
+     */
+    private static int[] configuredGridSize() {
+        String spec = System.getProperty("mas.grid.size");
+        int[] size = null;
+        if (spec != null) {
+            String[] parts = spec.trim().split("[xX]");
+            try {
+                int width = Integer.parseInt(parts[0].trim());
+                size = new int[]{width, parts.length > 1 ? Integer.parseInt(parts[1].trim()) : width};
+            } catch (NumberFormatException e) {
+                System.err.println("GridEnvironment: Invalid mas.grid.size '" + spec + "', using the layout size");
+            }
+        }
+        if (size == null) {
+            size = readLayoutSize(System.getProperty("mas.layout", DEFAULT_LAYOUT_FILE));
+        }
+        if (size == null) {
+            return new int[]{MIN_GRID_SIZE, MIN_GRID_SIZE};
+        }
+        for (int i = 0; i < 2; i++) {
+            if (size[i] < MIN_GRID_SIZE || size[i] > MAX_GRID_SIZE) {
+                System.err.println("GridEnvironment: Grid size " + size[0] + "x" + size[1] + " out of range, clamped to " + MIN_GRID_SIZE + ".." + MAX_GRID_SIZE);
+                size[i] = Math.max(MIN_GRID_SIZE, Math.min(MAX_GRID_SIZE, size[i]));
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Find the "size W H" line of a layout file
+     * @return {W, H}, or null if the file is missing or has no valid size line
+     */
+    private static int[] readLayoutSize(String path) {
+        try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                String[] parts = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+                if (parts[0].equals("size") && parts.length == 3) {
+                    return new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+                }
+            }
+        } catch (java.io.IOException | NumberFormatException e) {
+            // loadLayout() reports problems with the file
+        }
+        return null;
+    }
+    
     /**
      * Check if coordinates are valid within the grid
      */
@@ -57,5 +165,198 @@ public class GridEnvironment {
     public static int toGridY(double y) {
         return (int) Math.floor(y);
     }
-}
-
+    
+    /**
+     * Convert grid coordinates to a cell index (y * width + x)
+     */
+    public static int toCell(int x, int y) {
+        return y * GRID_WIDTH + x;
+    }
+    
+    /**
+     * Get the X coordinate of a table (tables are numbered from 1)
+     */
+    public static double getTableX(int tableNumber) {
+        return TABLE_BASE_X + (tableNumber - 1) * TABLE_SPACING_X;
+    }
+    
+    /**
+     * Get the walkable-cell map shared by all path searches
+     */
+    public static OccupancyMap getOccupancyMap() {
+        return occupancyMap;
+    }
+    
+    /**
+     * Get the cluster-based pathfinder for long trips on large grids
+     */
+    public static HierarchicalPathfinder getHierarchicalPathfinder() {
+        return hierarchicalPathfinder;
+    }
+    
+    /**
+     * Check if a cell is inside the grid and not blocked by walls, furniture or an occupied seat
+     */
+    public static boolean isWalkable(int x, int y) {
+        return occupancyMap.isWalkable(x, y);
+    }
+    
+    /**
+     * Mark a cell as dynamically occupied or free (e.g. a table seat).
+     * When the cell actually changes, only the flow fields and cached paths it affects are dropped.
+     */
+    public static void setOccupied(int x, int y, boolean occupied) {
+        if (occupancyMap.setOccupied(x, y, occupied)) {
+            hierarchicalPathfinder.markDirty(x, y);
+            onCellChanged(x, y);
+        }
+    }
+    
+    /**
+     * Load the floor plan from a layout file.
+     * Format, one command per line ('#' starts a comment):
+     *   size W H            - expected grid size (checked against GRID_WIDTH / GRID_HEIGHT)
+     *   wall x1 y1 x2 y2    - block an inclusive rectangle
+     *   open x1 y1 x2 y2    - clear an inclusive rectangle
+     * A missing file leaves the whole grid walkable.
+     * @param path Path to the layout file
+     * @return true if the file was loaded
+     */
+    public static synchronized boolean loadLayout(String path) {
+        occupancyMap.clear();
+        hierarchicalPathfinder.invalidateAll();
+        java.io.File file = new java.io.File(path);
+        if (!file.exists()) {
+            System.out.println("GridEnvironment: Layout file " + path + " not found, using open " + GRID_WIDTH + "x" + GRID_HEIGHT + " grid");
+            onLayoutChanged();
+            return false;
+        }
+        
+        try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                if (comment >= 0) {
+                    line = line.substring(0, comment);
+                }
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                
+                String[] parts = line.split("\\s+");
+                try {
+                    if (parts[0].equals("size") && parts.length == 3) {
+                        int width = Integer.parseInt(parts[1]);
+                        int height = Integer.parseInt(parts[2]);
+                        if (width != GRID_WIDTH || height != GRID_HEIGHT) {
+                            System.err.println("GridEnvironment: Layout " + path + " is " + width + "x" + height + " but grid is " + GRID_WIDTH + "x" + GRID_HEIGHT + " (-Dmas.grid.size), cells outside the grid are ignored");
+                        }
+                    } else if ((parts[0].equals("wall") || parts[0].equals("open")) && parts.length == 5) {
+                        occupancyMap.setWalls(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                            Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), parts[0].equals("wall"));
+                    } else {
+                        System.err.println("GridEnvironment: Ignoring invalid layout line " + lineNumber + ": " + line);
+                    }
+                } catch (NumberFormatException e) {
+                    System.err.println("GridEnvironment: Ignoring invalid layout line " + lineNumber + ": " + line);
+                }
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("GridEnvironment: Error reading layout " + path + ": " + e.getMessage());
+            occupancyMap.clear();
+            onLayoutChanged();
+            return false;
+        }
+        
+        System.out.println("GridEnvironment: Loaded layout " + path + " (" + occupancyMap.countWalkable() + " of " + (GRID_WIDTH * GRID_HEIGHT) + " cells walkable)");
+        onLayoutChanged();
+        return true;
+    }
+    
+    /**
+     * Refresh everything derived from the walkable map
+     */
+    private static synchronized void onLayoutChanged() {
+        for (int cell : destinationCells) {
+            flowFields[cell] = new FlowField(cell % GRID_WIDTH, cell / GRID_WIDTH);
+        }
+        goalFields.clear();
+        PathCache.getInstance().clear();
+    }
+    
+    /**
+     * Refresh what one changed cell affects: flow fields whose routes it changes are rebuilt
+     * on their next use, and cached paths through it are dropped
+     */
+    private static synchronized void onCellChanged(int x, int y) {
+        for (int cell : destinationCells) {
+            FlowField field = flowFields[cell];
+            if (field != null && !field.isStale() && field.isStaleAfterChange(x, y)) {
+                field.markStale();
+            }
+        }
+        for (FlowField field : goalFields.values()) {
+            if (!field.isStale() && field.isStaleAfterChange(x, y)) {
+                field.markStale();
+            }
+        }
+        PathCache.getInstance().evictThrough(toCell(x, y));
+    }
+    
+    /**
+     * Get the precomputed flow field leading to a goal cell
+     * @return Flow field, or null if the goal is not a static destination
+     */
+    public static FlowField getFlowField(int goalX, int goalY) {
+        if (!isValidPosition(goalX, goalY)) {
+            return null;
+        }
+        FlowField field = flowFields[toCell(goalX, goalY)];
+        if (field != null && field.isStale()) {
+            field = rebuildFlowField(toCell(goalX, goalY));
+        }
+        return field;
+    }
+    
+    /**
+     * Get a flow field leading to any goal cell: the precomputed one for a static destination,
+     * otherwise a shared one from a small LRU cache, built on first use. Check isStale() before
+     * reusing a field kept from an earlier call.
+     * @return Flow field, or null if the goal is outside the grid
+     */
+    public static FlowField getGoalField(int goalX, int goalY) {
+        FlowField field = getFlowField(goalX, goalY);
+        if (field != null || !isValidPosition(goalX, goalY)) {
+            return field;
+        }
+        int cell = toCell(goalX, goalY);
+        synchronized (GridEnvironment.class) {
+            field = goalFields.get(cell);
+        }
+        if (field != null && !field.isStale()) {
+            return field;
+        }
+        // Build outside the lock; a cell changed meanwhile is not checked against the new field
+        int version = occupancyMap.getVersion();
+        field = new FlowField(goalX, goalY);
+        synchronized (GridEnvironment.class) {
+            if (occupancyMap.getVersion() != version) {
+                field.markStale(); // Still usable by this caller, rebuilt on the next lookup
+            }
+            goalFields.put(cell, field);
+        }
+        return field;
+    }
+    
+    private static synchronized FlowField rebuildFlowField(int cell) {
+        FlowField field = flowFields[cell];
+        if (field.isStale()) { // Another thread may have rebuilt it meanwhile
+            field = new FlowField(cell % GRID_WIDTH, cell / GRID_WIDTH);
+            flowFields[cell] = field;
+        }
+        return field;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,639 @@
+package mas.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical path-finding (HPA*) for large floor plans.
+ * The map is split into square clusters. Walkable openings between neighboring clusters
+ * become entrance nodes, and the distances between the entrances of each cluster are
+ * precomputed. A query only searches this small abstract graph; the cell-by-cell path is
+ * refined one segment at a time, inside a single cluster, as the agent walks.
+ * Work and memory per query depend on the cluster size, not on the size of the map.
+ * When a cell changes only its cluster and the borders around it are rebuilt.
+ */
+public class HierarchicalPathfinder {
+    
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    private static final int LONG_ENTRANCE = 6; // Openings this wide get an entrance at each end
+    private static final int[] EMPTY = new int[0];
+    
+    // Neighbor offsets (4-directional movement), same order as AStarPathfinding
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    
+    private final OccupancyMap map;
+    private final int width, height;
+    private final int clusterSize;
+    private final int clustersX, clustersY;
+    private final Cluster[] clusters;
+    private final int[][] eastEntrances;  // Per cluster: (cell, cell across) pairs on its east border
+    private final int[][] southEntrances; // Per cluster: (cell, cell across) pairs on its south border
+    private final BitSet dirty;
+    
+    private final ThreadLocal<LocalSearch> localSearch;
+    
+    /**
+     * Abstract graph of one cluster
+     */
+    private static final class Cluster {
+        int[] nodes = EMPTY;            // Entrance cells inside this cluster
+        int[][] partners = new int[0][]; // For each node, the cells across the border it leads to
+        int[] distances = EMPTY;        // nodes x nodes step counts, -1 if not connected inside the cluster
+    }
+    
+    /**
+     * Breadth-first search state limited to one cluster, reused between searches
+     */
+    private static final class LocalSearch {
+        final int[] stamp;
+        final int[] distance;
+        final int[] parent;
+        final int[] queue;
+        int generation;
+        
+        LocalSearch(int cells) {
+            stamp = new int[cells];
+            distance = new int[cells];
+            parent = new int[cells];
+            queue = new int[cells];
+        }
+    }
+    
+    /**
+     * Create a pathfinder over a map. The abstract graph is built lazily on the first query.
+     * @param map Walkable map
+     * @param clusterSize Cluster edge length in cells
+     */
+    public HierarchicalPathfinder(OccupancyMap map, int clusterSize) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+        int count = clustersX * clustersY;
+        this.clusters = new Cluster[count];
+        this.eastEntrances = new int[count][];
+        this.southEntrances = new int[count][];
+        for (int i = 0; i < count; i++) {
+            clusters[i] = new Cluster();
+            eastEntrances[i] = EMPTY;
+            southEntrances[i] = EMPTY;
+        }
+        this.dirty = new BitSet(count);
+        this.dirty.set(0, count);
+        this.localSearch = ThreadLocal.withInitial(() -> new LocalSearch(clusterSize * clusterSize));
+    }
+    
+    public int getClusterSize() {
+        return clusterSize;
+    }
+    
+    public int getClusterCount() {
+        return clusters.length;
+    }
+    
+    /**
+     * Mark the cluster containing a cell for rebuild (call after the cell changed)
+     */
+    public synchronized void markDirty(int x, int y) {
+        if (map.inBounds(x, y)) {
+            dirty.set(clusterOf(x, y));
+        }
+    }
+    
+    /**
+     * Mark every cluster for rebuild (e.g. after loading a new layout)
+     */
+    public synchronized void invalidateAll() {
+        dirty.set(0, clusters.length);
+    }
+    
+    /**
+     * Plan a route on the abstract graph
+     * @return Route whose segments are refined on demand, or null if the goal is unreachable
+     */
+    public Route plan(int startX, int startY, int goalX, int goalY) {
+        if (!map.inBounds(startX, startY) || !map.inBounds(goalX, goalY)) {
+            return null;
+        }
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        int startCluster = clusterOf(startX, startY);
+        int goalCluster = clusterOf(goalX, goalY);
+        
+        // Neighbors and short trips inside one cluster need no abstract search
+        if (Math.abs(startX - goalX) + Math.abs(startY - goalY) <= 1) {
+            return new Route(new int[]{start, goal}, Math.abs(startX - goalX) + Math.abs(startY - goalY));
+        }
+        if (startCluster == goalCluster) {
+            LocalSearch ls = search(startCluster, start, goal);
+            int target = local(goal);
+            if (ls.stamp[target] == ls.generation) {
+                return new Route(new int[]{start, goal}, ls.distance[target]);
+            }
+        }
+        
+        synchronized (this) {
+            rebuildDirty();
+            return searchAbstract(start, goal);
+        }
+    }
+    
+    /**
+     * Find a full cell-by-cell path (all segments refined at once)
+     * @return List of path points from start to goal inclusive, or empty list if no path found
+     */
+    public List<int[]> findPath(int startX, int startY, int goalX, int goalY) {
+        Route route = plan(startX, startY, goalX, goalY);
+        List<int[]> path = new ArrayList<>();
+        while (route != null && route.hasNextSegment()) {
+            List<int[]> segment = route.nextSegment();
+            if (segment.isEmpty()) {
+                return new ArrayList<>();
+            }
+            path.addAll(segment);
+        }
+        return path;
+    }
+    
+    /**
+     * A route through the abstract graph: a chain of waypoints where every consecutive
+     * pair lies in the same cluster or straddles a cluster border.
+     */
+    public final class Route {
+        private final int[] waypoints;
+        private final int estimatedLength;
+        private int next = 1;
+        
+        private Route(int[] waypoints, int estimatedLength) {
+            this.waypoints = waypoints;
+            this.estimatedLength = estimatedLength;
+        }
+        
+        public boolean hasNextSegment() {
+            return next < waypoints.length;
+        }
+        
+        /**
+         * Refine the next segment into cells. The first segment starts with the start cell,
+         * later ones continue after the previous waypoint.
+         * @return Cells of the segment, or empty list if the map changed and the segment is blocked
+         */
+        public List<int[]> nextSegment() {
+            if (!hasNextSegment()) {
+                return new ArrayList<>();
+            }
+            List<int[]> segment = refine(waypoints[next - 1], waypoints[next]);
+            if (next > 1 && !segment.isEmpty()) {
+                segment.remove(0);
+            }
+            next++;
+            return segment;
+        }
+        
+        public int getWaypointCount() {
+            return waypoints.length;
+        }
+        
+        /**
+         * Get path length in steps as estimated by the abstract search
+         */
+        public int getEstimatedLength() {
+            return estimatedLength;
+        }
+    }
+    
+    /**
+     * A* over entrance nodes. The start and goal are linked to nearby entrances with
+     * one local search per cluster they touch.
+     */
+    private Route searchAbstract(int start, int goal) {
+        Map<Integer, Integer> startLinks = new HashMap<>();
+        Map<Integer, Integer> startVia = new HashMap<>();
+        Map<Integer, Integer> goalLinks = new HashMap<>();
+        Map<Integer, Integer> goalVia = new HashMap<>();
+        link(start, startLinks, startVia);
+        link(goal, goalLinks, goalVia);
+        int goalX = goal % width;
+        int goalY = goal / width;
+        
+        Map<Integer, Integer> gCost = new HashMap<>();
+        Map<Integer, Integer> parent = new HashMap<>();
+        PriorityQueue<Long> open = new PriorityQueue<>();
+        gCost.put(start, 0);
+        parent.put(start, -1);
+        open.add(entry(heuristic(start, goalX, goalY), start));
+        
+        while (!open.isEmpty()) {
+            long top = open.poll();
+            int cell = (int) top;
+            int g = gCost.get(cell);
+            if ((int) (top >>> 32) > g + heuristic(cell, goalX, goalY)) {
+                continue; // Stale queue entry
+            }
+            if (cell == goal) {
+                return new Route(waypoints(parent, start, goal, startVia, goalVia), g);
+            }
+            
+            Cluster c = clusters[clusterOf(cell % width, cell / width)];
+            int node = indexOf(c, cell);
+            if (cell == start) {
+                for (Map.Entry<Integer, Integer> link : startLinks.entrySet()) {
+                    if (link.getKey() != start) {
+                        relax(open, gCost, parent, cell, link.getKey(), g + link.getValue(), goalX, goalY);
+                    }
+                }
+            } else if (node >= 0) {
+                for (int i = 0; i < c.nodes.length; i++) {
+                    int d = c.distances[node * c.nodes.length + i];
+                    if (d > 0) {
+                        relax(open, gCost, parent, cell, c.nodes[i], g + d, goalX, goalY);
+                    }
+                }
+            }
+            if (node >= 0) {
+                for (int across : c.partners[node]) {
+                    relax(open, gCost, parent, cell, across, g + 1, goalX, goalY);
+                }
+            }
+            Integer toGoal = goalLinks.get(cell);
+            if (toGoal != null) {
+                relax(open, gCost, parent, cell, goal, g + toGoal, goalX, goalY);
+            }
+        }
+        
+        // No path found
+        return null;
+    }
+    
+    /**
+     * Find the entrances reachable from a cell: those of its own cluster and, through a
+     * border neighbor, those of adjacent clusters. A blocked start or goal (e.g. an occupied
+     * seat) may only be open towards another cluster.
+     * @param links Receives entrance cell -> steps from the cell
+     * @param via Receives entrance cell -> border neighbor used to reach it
+     */
+    private void link(int cell, Map<Integer, Integer> links, Map<Integer, Integer> via) {
+        int x = cell % width;
+        int y = cell / width;
+        int cluster = clusterOf(x, y);
+        addLinks(cluster, cell, 0, -1, links, via);
+        for (int i = 0; i < 4; i++) {
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (map.isWalkable(nx, ny) && clusterOf(nx, ny) != cluster) {
+                addLinks(clusterOf(nx, ny), ny * width + nx, 1, ny * width + nx, links, via);
+            }
+        }
+    }
+    
+    private void addLinks(int cluster, int source, int extra, int viaCell,
+                          Map<Integer, Integer> links, Map<Integer, Integer> via) {
+        Cluster c = clusters[cluster];
+        int[] distances = distancesToNodes(cluster, source);
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] < 0) {
+                continue;
+            }
+            Integer known = links.get(c.nodes[i]);
+            if (known == null || known > distances[i] + extra) {
+                links.put(c.nodes[i], distances[i] + extra);
+                if (viaCell >= 0) {
+                    via.put(c.nodes[i], viaCell);
+                } else {
+                    via.remove(c.nodes[i]);
+                }
+            }
+        }
+    }
+    
+    private void relax(PriorityQueue<Long> open, Map<Integer, Integer> gCost, Map<Integer, Integer> parent,
+                       int from, int to, int g, int goalX, int goalY) {
+        Integer known = gCost.get(to);
+        if (known != null && known <= g) {
+            return;
+        }
+        gCost.put(to, g);
+        parent.put(to, from);
+        open.add(entry(g + heuristic(to, goalX, goalY), to));
+    }
+    
+    private static long entry(int f, int cell) {
+        return ((long) f << 32) | cell;
+    }
+    
+    /**
+     * Heuristic function (Manhattan distance)
+     */
+    private int heuristic(int cell, int goalX, int goalY) {
+        return Math.abs(cell % width - goalX) + Math.abs(cell / width - goalY);
+    }
+    
+    /**
+     * Walk the parent chain back from the goal, adding the border neighbors used to
+     * link the start and goal so every segment stays inside one cluster
+     */
+    private static int[] waypoints(Map<Integer, Integer> parent, int start, int goal,
+                                   Map<Integer, Integer> startVia, Map<Integer, Integer> goalVia) {
+        List<Integer> chain = new ArrayList<>();
+        for (int cell = goal; cell >= 0; cell = parent.get(cell)) {
+            chain.add(0, cell);
+        }
+        Integer beforeGoal = goalVia.get(chain.get(chain.size() - 2));
+        if (beforeGoal != null && !beforeGoal.equals(chain.get(chain.size() - 2))) {
+            chain.add(chain.size() - 1, beforeGoal);
+        }
+        Integer afterStart = chain.get(1) != goal ? startVia.get(chain.get(1)) : null;
+        if (afterStart != null && !afterStart.equals(chain.get(1))) {
+            chain.add(1, afterStart);
+        }
+        int[] waypoints = new int[chain.size()];
+        for (int i = 0; i < waypoints.length; i++) {
+            waypoints[i] = chain.get(i);
+        }
+        return waypoints;
+    }
+    
+    /**
+     * Search from a cell to every entrance of a cluster
+     * @return Distance to each node of the cluster, -1 if not reachable inside the cluster
+     */
+    private int[] distancesToNodes(int cluster, int source) {
+        Cluster c = clusters[cluster];
+        LocalSearch ls = search(cluster, source, -1);
+        int[] result = new int[c.nodes.length];
+        for (int i = 0; i < c.nodes.length; i++) {
+            int index = local(c.nodes[i]);
+            result[i] = ls.stamp[index] == ls.generation ? ls.distance[index] : -1;
+        }
+        return result;
+    }
+    
+    /**
+     * Turn one route segment into cells
+     */
+    private List<int[]> refine(int from, int to) {
+        List<int[]> cells = new ArrayList<>();
+        int fromX = from % width, fromY = from / width;
+        int toX = to % width, toY = to / width;
+        if (Math.abs(fromX - toX) + Math.abs(fromY - toY) <= 1) {
+            // Zero-length segment or a step across a cluster border
+            cells.add(new int[]{fromX, fromY});
+            if (from != to) {
+                cells.add(new int[]{toX, toY});
+            }
+            return cells;
+        }
+        
+        int cluster = clusterOf(fromX, fromY);
+        if (cluster != clusterOf(toX, toY)) {
+            return cells;
+        }
+        LocalSearch ls = search(cluster, from, to);
+        int target = local(to);
+        if (ls.stamp[target] != ls.generation) {
+            return cells;
+        }
+        int[][] points = new int[ls.distance[target] + 1][];
+        int index = target;
+        for (int i = points.length - 1; i >= 0; i--) {
+            points[i] = new int[]{cellX(from, index), cellY(from, index)};
+            index = ls.parent[index];
+        }
+        for (int[] point : points) {
+            cells.add(point);
+        }
+        return cells;
+    }
+    
+    /**
+     * Breadth-first search inside the cluster of source.
+     * The source and target are always passable (agents may stand on or head to occupied cells).
+     * @param target Cell to stop at, or -1 to explore the whole cluster
+     */
+    private LocalSearch search(int cluster, int source, int target) {
+        LocalSearch ls = localSearch.get();
+        if (++ls.generation == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(ls.stamp, 0);
+            ls.generation = 1;
+        }
+        int minX = (cluster % clustersX) * clusterSize;
+        int minY = (cluster / clustersX) * clusterSize;
+        int maxX = Math.min(width - 1, minX + clusterSize - 1);
+        int maxY = Math.min(height - 1, minY + clusterSize - 1);
+        
+        int head = 0, tail = 0;
+        int sourceIndex = local(source);
+        int targetIndex = target >= 0 ? local(target) : -1;
+        ls.stamp[sourceIndex] = ls.generation;
+        ls.distance[sourceIndex] = 0;
+        ls.parent[sourceIndex] = -1;
+        ls.queue[tail++] = sourceIndex;
+        
+        while (head < tail) {
+            int index = ls.queue[head++];
+            if (index == targetIndex) {
+                break;
+            }
+            int x = minX + index % clusterSize;
+            int y = minY + index / clusterSize;
+            for (int i = 0; i < 4; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+                if (nx < minX || nx > maxX || ny < minY || ny > maxY) {
+                    continue;
+                }
+                int neighbor = (ny - minY) * clusterSize + (nx - minX);
+                if (ls.stamp[neighbor] == ls.generation) {
+                    continue;
+                }
+                if (!map.isWalkable(nx, ny) && neighbor != targetIndex) {
+                    continue;
+                }
+                ls.stamp[neighbor] = ls.generation;
+                ls.distance[neighbor] = ls.distance[index] + 1;
+                ls.parent[neighbor] = index;
+                ls.queue[tail++] = neighbor;
+            }
+        }
+        return ls;
+    }
+    
+    /**
+     * Rebuild entrances and node distances around every dirty cluster
+     */
+    private void rebuildDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        BitSet affected = new BitSet(clusters.length);
+        for (int c = dirty.nextSetBit(0); c >= 0; c = dirty.nextSetBit(c + 1)) {
+            int cx = c % clustersX;
+            int cy = c / clustersX;
+            eastEntrances[c] = findEntrances(c, true);
+            southEntrances[c] = findEntrances(c, false);
+            affected.set(c);
+            if (cx > 0) {
+                eastEntrances[c - 1] = findEntrances(c - 1, true);
+                affected.set(c - 1);
+            }
+            if (cy > 0) {
+                southEntrances[c - clustersX] = findEntrances(c - clustersX, false);
+                affected.set(c - clustersX);
+            }
+            if (cx + 1 < clustersX) {
+                affected.set(c + 1);
+            }
+            if (cy + 1 < clustersY) {
+                affected.set(c + clustersX);
+            }
+        }
+        dirty.clear();
+        for (int c = affected.nextSetBit(0); c >= 0; c = affected.nextSetBit(c + 1)) {
+            buildCluster(c);
+        }
+    }
+    
+    /**
+     * Find the openings on the east or south border of a cluster
+     * @return Flattened (cell inside, cell across) pairs
+     */
+    private int[] findEntrances(int cluster, boolean east) {
+        int cx = cluster % clustersX;
+        int cy = cluster / clustersX;
+        if (east ? cx + 1 >= clustersX : cy + 1 >= clustersY) {
+            return EMPTY;
+        }
+        int minX = cx * clusterSize;
+        int minY = cy * clusterSize;
+        int maxX = Math.min(width - 1, minX + clusterSize - 1);
+        int maxY = Math.min(height - 1, minY + clusterSize - 1);
+        int length = east ? maxY - minY + 1 : maxX - minX + 1;
+        
+        int[] pairs = new int[length * 2];
+        int count = 0;
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = false;
+            if (i < length) {
+                int ax = east ? maxX : minX + i;
+                int ay = east ? minY + i : maxY;
+                open = map.isWalkable(ax, ay) && map.isWalkable(east ? ax + 1 : ax, east ? ay : ay + 1);
+            }
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= LONG_ENTRANCE) {
+                    count = addEntrance(pairs, count, east, minX, minY, maxX, maxY, runStart);
+                    count = addEntrance(pairs, count, east, minX, minY, maxX, maxY, runEnd);
+                } else {
+                    count = addEntrance(pairs, count, east, minX, minY, maxX, maxY, (runStart + runEnd) / 2);
+                }
+                runStart = -1;
+            }
+        }
+        return java.util.Arrays.copyOf(pairs, count);
+    }
+    
+    private int addEntrance(int[] pairs, int count, boolean east, int minX, int minY, int maxX, int maxY, int offset) {
+        int x = east ? maxX : minX + offset;
+        int y = east ? minY + offset : maxY;
+        pairs[count] = y * width + x;
+        pairs[count + 1] = east ? pairs[count] + 1 : pairs[count] + width;
+        return count + 2;
+    }
+    
+    /**
+     * Collect the entrance nodes of a cluster from its four borders and compute
+     * the distances between them
+     */
+    private void buildCluster(int cluster) {
+        int cx = cluster % clustersX;
+        int cy = cluster / clustersX;
+        List<Integer> nodes = new ArrayList<>();
+        List<List<Integer>> partners = new ArrayList<>();
+        addNodes(nodes, partners, eastEntrances[cluster], 0);
+        addNodes(nodes, partners, southEntrances[cluster], 0);
+        if (cx > 0) {
+            addNodes(nodes, partners, eastEntrances[cluster - 1], 1);
+        }
+        if (cy > 0) {
+            addNodes(nodes, partners, southEntrances[cluster - clustersX], 1);
+        }
+        
+        Cluster c = new Cluster();
+        int n = nodes.size();
+        c.nodes = new int[n];
+        c.partners = new int[n][];
+        for (int i = 0; i < n; i++) {
+            c.nodes[i] = nodes.get(i);
+            List<Integer> across = partners.get(i);
+            c.partners[i] = new int[across.size()];
+            for (int j = 0; j < across.size(); j++) {
+                c.partners[i][j] = across.get(j);
+            }
+        }
+        c.distances = new int[n * n];
+        for (int i = 0; i < n; i++) {
+            LocalSearch ls = search(cluster, c.nodes[i], -1);
+            for (int j = 0; j < n; j++) {
+                int index = local(c.nodes[j]);
+                c.distances[i * n + j] = ls.stamp[index] == ls.generation ? ls.distance[index] : -1;
+            }
+        }
+        clusters[cluster] = c; // Publish the finished graph in one write
+    }
+    
+    /**
+     * Add the cells on one side of a border's entrance pairs as nodes
+     * @param side 0 for the first cell of each pair, 1 for the second
+     */
+    private static void addNodes(List<Integer> nodes, List<List<Integer>> partners, int[] pairs, int side) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            int cell = pairs[i + side];
+            int across = pairs[i + 1 - side];
+            int index = nodes.indexOf(cell);
+            if (index < 0) {
+                nodes.add(cell);
+                partners.add(new ArrayList<>());
+                index = nodes.size() - 1;
+            }
+            partners.get(index).add(across);
+        }
+    }
+    
+    private static int indexOf(Cluster c, int cell) {
+        for (int i = 0; i < c.nodes.length; i++) {
+            if (c.nodes[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private int clusterOf(int x, int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+    
+    /**
+     * Index of a cell inside the local search arrays of its cluster
+     */
+    private int local(int cell) {
+        return ((cell / width) % clusterSize) * clusterSize + (cell % width) % clusterSize;
+    }
+    
+    private int cellX(int anyCellInCluster, int index) {
+        return (anyCellInCluster % width) / clusterSize * clusterSize + index % clusterSize;
+    }
+    
+    private int cellY(int anyCellInCluster, int index) {
+        return (anyCellInCluster / width) / clusterSize * clusterSize + index / clusterSize;
+    }
+}
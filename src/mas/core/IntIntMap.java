@@ -0,0 +1,99 @@
+package mas.core;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing int -> int hash map (linear probing, backward-shift deletion).
+ * Keys must be non-negative (cell indices); no boxing, unlike HashMap<Integer, Integer>.
+ */
+final class IntIntMap {
+    private static final int FREE = -1; // Keys are cell indices, never negative
+    private int[] keys;
+    private int[] values;
+    private int size;
+    
+    IntIntMap() {
+        keys = new int[64];
+        values = new int[64];
+        Arrays.fill(keys, FREE);
+    }
+    
+    int get(int key, int missing) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == FREE) {
+                return missing;
+            }
+        }
+    }
+    
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != FREE && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == FREE) {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+    
+    void remove(int key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == FREE) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // Shift following entries back so probe chains stay unbroken
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = FREE;
+        size--;
+    }
+    
+    void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+    
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
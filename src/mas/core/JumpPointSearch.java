@@ -0,0 +1,261 @@
+package mas.core;
+
+/**
+ * Jump Point Search for the 4-connected, uniform-cost grid.
+ * Instead of queuing every neighbor, the search jumps along straight lines and only
+ * stops at cells where a turn may be needed (forced neighbors) or at the goal, so long
+ * trips over open floor expand a handful of nodes instead of thousands.
+ * Horizontal jumps scan 64 cells at a time on the OccupancyMap bit rows.
+ * Selected through AStarPathfinding.setStrategy(Strategy.JUMP_POINT).
+ */
+class JumpPointSearch {
+    
+    private final OccupancyMap map;
+    private final int width;
+    private final int goalX, goalY;
+    
+    private JumpPointSearch(OccupancyMap map, int goalX, int goalY) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.goalX = goalX;
+        this.goalY = goalY;
+    }
+    
+    /**
+     * Calculate a path from start to goal.
+     * Same output as AStarPathfinding: every cell from start to goal inclusive.
+     * @return Packed path, or PackedPath.EMPTY if no path found
+     */
+    static PackedPath findPath(OccupancyMap map, AStarPathfinding.SearchWorkspace ws,
+                                int startX, int startY, int goalX, int goalY) {
+        return new JumpPointSearch(map, goalX, goalY).search(ws, startX, startY);
+    }
+    
+    private PackedPath search(AStarPathfinding.SearchWorkspace ws, int startX, int startY) {
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        
+        ws.begin(width * map.getHeight());
+        ws.seen[start] = ws.generation;
+        ws.gCost[start] = 0;
+        ws.fCost[start] = heuristic(startX, startY);
+        ws.parent[start] = -1;
+        ws.heapIndex[start] = -1;
+        ws.push(start);
+        
+        int[] successors = new int[4];
+        while (ws.heapSize > 0) {
+            int current = ws.pop();
+            ws.expanded++;
+            if (current == goal) {
+                return reconstructPath(ws, current);
+            }
+            ws.closed[current] = ws.generation;
+            
+            int cx = current % width;
+            int cy = current / width;
+            int count = findSuccessors(ws, current, cx, cy, successors);
+            for (int i = 0; i < count; i++) {
+                int jump = successors[i];
+                if (ws.isClosed(jump)) {
+                    continue;
+                }
+                int jx = jump % width;
+                int jy = jump / width;
+                int nextG = ws.gCost[current] + Math.abs(jx - cx) + Math.abs(jy - cy);
+                if (ws.isSeen(jump)) {
+                    if (nextG >= ws.gCost[jump]) {
+                        continue;
+                    }
+                } else {
+                    ws.seen[jump] = ws.generation;
+                    ws.heapIndex[jump] = -1;
+                }
+                ws.parent[jump] = current;
+                ws.gCost[jump] = nextG;
+                ws.fCost[jump] = nextG + heuristic(jx, jy);
+                ws.push(jump);
+            }
+        }
+        
+        // No path found
+        return PackedPath.EMPTY;
+    }
+    
+    /**
+     * Collect the jump points reachable from a node, pruning neighbors by the direction
+     * we arrived from (the start node has no parent and tries all four directions)
+     * @return Number of successors written to out
+     */
+    private int findSuccessors(AStarPathfinding.SearchWorkspace ws, int node, int x, int y, int[] out) {
+        int count = 0;
+        int parent = ws.parent[node];
+        int dx = 0, dy = 0;
+        if (parent >= 0) {
+            dx = Integer.signum(x - parent % width);
+            dy = Integer.signum(y - parent / width);
+        }
+        
+        // Arriving horizontally: keep going straight or turn up/down
+        // Arriving vertically: keep going straight or turn left/right
+        if (parent < 0 || dy != 0) {
+            count = addJump(out, count, jumpHorizontal(x + 1, y, 1), y);
+            count = addJump(out, count, jumpHorizontal(x - 1, y, -1), y);
+        }
+        if (parent < 0 || dx != 0) {
+            count = addJump(out, count, x, jumpVertical(x, y - 1, -1));
+            count = addJump(out, count, x, jumpVertical(x, y + 1, 1));
+        }
+        if (parent >= 0 && dx != 0) {
+            count = addJump(out, count, jumpHorizontal(x + dx, y, dx), y);
+        }
+        if (parent >= 0 && dy != 0) {
+            count = addJump(out, count, x, jumpVertical(x, y + dy, dy));
+        }
+        return count;
+    }
+    
+    private int addJump(int[] out, int count, int jx, int jy) {
+        if (jx < 0 || jy < 0) {
+            return count;
+        }
+        out[count] = jy * width + jx;
+        return count + 1;
+    }
+    
+    /**
+     * Cells are passable if walkable; the goal is always passable (it may be an occupied seat)
+     */
+    private boolean passable(int x, int y) {
+        return (x == goalX && y == goalY) ? map.inBounds(x, y) : map.isWalkable(x, y);
+    }
+    
+    /**
+     * Blocked bits of a row word with the goal treated as open
+     */
+    private long blocked(int y, int word) {
+        long bits = map.blockedBits(y, word);
+        if (y == goalY && word == (goalX >>> 6)) {
+            bits &= ~(1L << goalX);
+        }
+        return bits;
+    }
+    
+    /**
+     * Jump horizontally starting at (x, y) in direction dx.
+     * Stops at the goal or at a cell with a forced neighbor: the cell above/below is open
+     * while the one above/below the previous cell is blocked.
+     * @return X coordinate of the jump point, or -1 if the line hits a wall first
+     */
+    private int jumpHorizontal(int x, int y, int dx) {
+        if (x < 0 || x >= width) {
+            return -1;
+        }
+        int words = map.getWordsPerRow();
+        if (dx > 0) {
+            for (int w = x >>> 6; w < words; w++) {
+                long row = blocked(y, w);
+                long up = blocked(y - 1, w);
+                long down = blocked(y + 1, w);
+                // Bit i holds the cell to the left of cell i
+                long upPrev = (up << 1) | (blocked(y - 1, w - 1) >>> 63);
+                long downPrev = (down << 1) | (blocked(y + 1, w - 1) >>> 63);
+                long events = row | (~up & upPrev) | (~down & downPrev);
+                if (w == (x >>> 6)) {
+                    events &= -1L << x;
+                }
+                if (events != 0) {
+                    int e = (w << 6) + Long.numberOfTrailingZeros(events);
+                    if (y == goalY && goalX >= x && goalX <= e) {
+                        return goalX;
+                    }
+                    return ((row >>> e) & 1L) != 0 ? -1 : e;
+                }
+            }
+            return (y == goalY && goalX >= x) ? goalX : -1;
+        } else {
+            for (int w = x >>> 6; w >= 0; w--) {
+                long row = blocked(y, w);
+                long up = blocked(y - 1, w);
+                long down = blocked(y + 1, w);
+                // Bit i holds the cell to the right of cell i
+                long upNext = (up >>> 1) | (blocked(y - 1, w + 1) << 63);
+                long downNext = (down >>> 1) | (blocked(y + 1, w + 1) << 63);
+                long events = row | (~up & upNext) | (~down & downNext);
+                if (w == (x >>> 6) && (x & 63) != 63) {
+                    events &= (1L << ((x & 63) + 1)) - 1;
+                }
+                if (events != 0) {
+                    int e = (w << 6) + 63 - Long.numberOfLeadingZeros(events);
+                    if (y == goalY && goalX <= x && goalX >= e) {
+                        return goalX;
+                    }
+                    return ((row >>> e) & 1L) != 0 ? -1 : e;
+                }
+            }
+            return (y == goalY && goalX <= x) ? goalX : -1;
+        }
+    }
+    
+    /**
+     * Jump vertically starting at (x, y) in direction dy.
+     * Besides forced neighbors, a vertical jump stops wherever a horizontal jump
+     * from the current cell would find a jump point.
+     * @return Y coordinate of the jump point, or -1 if the line hits a wall first
+     */
+    private int jumpVertical(int x, int y, int dy) {
+        while (passable(x, y)) {
+            if (x == goalX && y == goalY) {
+                return y;
+            }
+            if ((passable(x - 1, y) && !passable(x - 1, y - dy)) ||
+                (passable(x + 1, y) && !passable(x + 1, y - dy))) {
+                return y;
+            }
+            if (jumpHorizontal(x + 1, y, 1) >= 0 || jumpHorizontal(x - 1, y, -1) >= 0) {
+                return y;
+            }
+            y += dy;
+        }
+        return -1;
+    }
+    
+    /**
+     * Heuristic function (Manhattan distance)
+     */
+    private int heuristic(int x, int y) {
+        return Math.abs(x - goalX) + Math.abs(y - goalY);
+    }
+    
+    /**
+     * Expand the chain of jump points into every cell of the path
+     */
+    private PackedPath reconstructPath(AStarPathfinding.SearchWorkspace ws, int goal) {
+        int length = ws.gCost[goal] + 1;
+        int[] cells = new int[length];
+        int index = length - 1;
+        int cell = goal;
+        while (index >= 0) {
+            int x = cell % width;
+            int y = cell / width;
+            int parent = ws.parent[cell];
+            if (parent < 0) {
+                cells[index--] = cell;
+                break;
+            }
+            int px = parent % width;
+            int py = parent / width;
+            int stepX = Integer.signum(px - x);
+            int stepY = Integer.signum(py - y);
+            // Walk back along the straight segment, stopping before the parent jump point
+            while (x != px || y != py) {
+                cells[index--] = y * width + x;
+                x += stepX;
+                y += stepY;
+            }
+            cell = parent;
+        }
+        
+        return PackedPath.ofCells(cells, length, width);
+    }
+}
@@ -0,0 +1,192 @@
+package mas.core;
+
+import java.util.Arrays;
+
+/**
+ * OccupancyMap stores which grid cells can be walked on, one bit per cell.
+ * Static walls come from the layout file; dynamic occupancy (e.g. an occupied table seat)
+ * is kept in a second bitset so it can be toggled without touching the layout.
+ * Each row is packed into ceil(width / 64) longs, so a 120-wide row fits in two words.
+ */
+public class OccupancyMap {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] walls;
+    private final long[] occupied;
+    private volatile int version = 0; // Incremented for every changed cell
+    
+    // Ring buffer of the last changed cells; entry i holds the cell changed at version i + 1
+    public static final int CHANGE_LOG_SIZE = 1024;
+    private final int[] changeLog = new int[CHANGE_LOG_SIZE];
+    
+    /**
+     * Create an open map (every cell walkable)
+     * @param width Width in cells
+     * @param height Height in cells
+     */
+    public OccupancyMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.walls = new long[wordsPerRow * height];
+        this.occupied = new long[wordsPerRow * height];
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Get the change counter; it differs whenever any cell changed since it was last read.
+     * Pass it to changesSince() later to find out which cells changed.
+     */
+    public int getVersion() {
+        return version;
+    }
+    
+    /**
+     * Check if coordinates are inside the map
+     */
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+    
+    /**
+     * Check if a cell is inside the map and neither a wall nor occupied
+     */
+    public boolean isWalkable(int x, int y) {
+        if (!inBounds(x, y)) {
+            return false;
+        }
+        int word = y * wordsPerRow + (x >>> 6);
+        return ((walls[word] | occupied[word]) & (1L << x)) == 0;
+    }
+    
+    /**
+     * Check if a cell is a static wall
+     */
+    public boolean isWall(int x, int y) {
+        return inBounds(x, y) && (walls[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+    
+    /**
+     * Check if a cell is dynamically occupied
+     */
+    public boolean isOccupied(int x, int y) {
+        return inBounds(x, y) && (occupied[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+    
+    /**
+     * Get the blocked bits (walls or occupied) of 64 consecutive cells of a row.
+     * Bit i describes cell (word * 64 + i, y); cells outside the map read as blocked.
+     * Lets searches scan a whole row segment with a few word operations.
+     * @param y Row
+     * @param word Word index within the row (x / 64)
+     */
+    public long blockedBits(int y, int word) {
+        if (y < 0 || y >= height || word < 0 || word >= wordsPerRow) {
+            return -1L;
+        }
+        int index = y * wordsPerRow + word;
+        long bits = walls[index] | occupied[index];
+        if (word == wordsPerRow - 1 && (width & 63) != 0) {
+            bits |= -1L << (width & 63); // Padding past the right edge
+        }
+        return bits;
+    }
+    
+    /**
+     * Get number of 64-cell words per row
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+    
+    /**
+     * Mark or clear a static wall on an inclusive rectangle (clipped to the map)
+     */
+    public synchronized void setWalls(int x1, int y1, int x2, int y2, boolean wall) {
+        int minX = Math.max(0, Math.min(x1, x2));
+        int maxX = Math.min(width - 1, Math.max(x1, x2));
+        int minY = Math.max(0, Math.min(y1, y2));
+        int maxY = Math.min(height - 1, Math.max(y1, y2));
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (isWall(x, y) != wall) {
+                    setBit(walls, x, y, wall);
+                    logChange(x, y);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Mark or clear dynamic occupancy of a single cell
+     * @return true if the cell changed
+     */
+    public synchronized boolean setOccupied(int x, int y, boolean isOccupied) {
+        if (!inBounds(x, y) || isOccupied(x, y) == isOccupied) {
+            return false;
+        }
+        setBit(occupied, x, y, isOccupied);
+        logChange(x, y);
+        return true;
+    }
+    
+    /**
+     * Remove all walls and occupancy
+     */
+    public synchronized void clear() {
+        Arrays.fill(walls, 0L);
+        Arrays.fill(occupied, 0L);
+        version += CHANGE_LOG_SIZE + 1; // Too many changes to list: readers of the log start over
+    }
+    
+    /**
+     * Get the cells changed after a given version
+     * @param sinceVersion Value of getVersion() when the caller last synchronized
+     * @param out Receives cell indices (y * width + x); a cell may appear more than once
+     * @return Number of cells written, or -1 if the log no longer reaches back that far
+     *         (or out is too small) and the caller must treat the whole map as changed
+     */
+    public synchronized int changesSince(int sinceVersion, int[] out) {
+        int count = version - sinceVersion;
+        if (count < 0 || count > CHANGE_LOG_SIZE || count > out.length) {
+            return -1;
+        }
+        for (int i = 0; i < count; i++) {
+            out[i] = changeLog[(sinceVersion + i) & (CHANGE_LOG_SIZE - 1)];
+        }
+        return count;
+    }
+    
+    /**
+     * Count walkable cells (for diagnostics)
+     */
+    public int countWalkable() {
+        int blocked = 0;
+        for (int i = 0; i < walls.length; i++) {
+            blocked += Long.bitCount(walls[i] | occupied[i]);
+        }
+        return width * height - blocked;
+    }
+    
+    private void logChange(int x, int y) {
+        changeLog[version & (CHANGE_LOG_SIZE - 1)] = y * width + x;
+        version++;
+    }
+    
+    private void setBit(long[] bits, int x, int y, boolean value) {
+        int word = y * wordsPerRow + (x >>> 6);
+        if (value) {
+            bits[word] |= 1L << x;
+        } else {
+            bits[word] &= ~(1L << x);
+        }
+    }
+}
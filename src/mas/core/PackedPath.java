@@ -0,0 +1,165 @@
+package mas.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PackedPath stores a grid path as cell indices (y * width + x) in a single int array
+ * instead of one int[] per step. Paths made of long straight segments are run-length
+ * encoded: each run is stored as (first step index, first cell, cell delta), so a
+ * 100-step path with 3 corners takes 12 ints. Instances are immutable and can be shared.
+ */
+public final class PackedPath implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final PackedPath EMPTY = new PackedPath(GridEnvironment.GRID_WIDTH, 0, new int[0], false);
+    
+    private final int width;
+    private final int length;
+    private final int[] data;       // Cells, or (start index, start cell, delta) triples when compressed
+    private final boolean compressed;
+    
+    private PackedPath(int width, int length, int[] data, boolean compressed) {
+        this.width = width;
+        this.length = length;
+        this.data = data;
+        this.compressed = compressed;
+    }
+    
+    /**
+     * Pack cell indices, run-length encoding them when that is smaller
+     * @param cells Cell indices (y * width + x); the array is copied
+     * @param count Number of cells to use
+     * @param width Grid width the cells were computed with
+     */
+    public static PackedPath ofCells(int[] cells, int count, int width) {
+        if (count == 0) {
+            return EMPTY;
+        }
+        int runs = 1;
+        for (int i = 2; i < count; i++) {
+            if (cells[i] - cells[i - 1] != cells[i - 1] - cells[i - 2]) {
+                runs++;
+            }
+        }
+        if (runs * 3 >= count) {
+            return new PackedPath(width, count, java.util.Arrays.copyOf(cells, count), false);
+        }
+        
+        int[] data = new int[runs * 3];
+        int run = 0;
+        data[0] = 0;
+        data[1] = cells[0];
+        data[2] = count > 1 ? cells[1] - cells[0] : 0;
+        for (int i = 2; i < count; i++) {
+            int delta = cells[i] - cells[i - 1];
+            if (delta != cells[i - 1] - cells[i - 2]) {
+                run += 3;
+                data[run] = i - 1;
+                data[run + 1] = cells[i - 1];
+                data[run + 2] = delta;
+            }
+        }
+        return new PackedPath(width, count, data, true);
+    }
+    
+    /**
+     * Pack a list of (x, y) points
+     */
+    public static PackedPath of(List<int[]> points, int width) {
+        int[] cells = new int[points.size()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = points.get(i)[1] * width + points.get(i)[0];
+        }
+        return ofCells(cells, cells.length, width);
+    }
+    
+    /**
+     * Get number of cells in the path
+     */
+    public int size() {
+        return length;
+    }
+    
+    public boolean isEmpty() {
+        return length == 0;
+    }
+    
+    /**
+     * Get the cell index of a step
+     */
+    public int getCell(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Step " + index + " of " + length);
+        }
+        if (!compressed) {
+            return data[index];
+        }
+        // Binary search for the last run starting at or before index
+        int low = 0, high = data.length / 3 - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (data[mid * 3] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int run = low * 3;
+        return data[run + 1] + (index - data[run]) * data[run + 2];
+    }
+    
+    public int getX(int index) {
+        return getCell(index) % width;
+    }
+    
+    public int getY(int index) {
+        return getCell(index) / width;
+    }
+    
+    /**
+     * Check if the path passes through a cell, without unpacking it
+     */
+    public boolean contains(int cell) {
+        if (!compressed) {
+            for (int i = 0; i < length; i++) {
+                if (data[i] == cell) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int run = 0; run < data.length; run += 3) {
+            int steps = (run + 3 < data.length ? data[run + 3] : length) - data[run];
+            int offset = cell - data[run + 1];
+            int delta = data[run + 2];
+            if (delta == 0 ? offset == 0 : offset % delta == 0 && offset / delta >= 0 && offset / delta < steps) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the path as a list of (x, y) points
+     */
+    public List<int[]> toList() {
+        List<int[]> points = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            int cell = getCell(i);
+            points.add(new int[]{cell % width, cell / width});
+        }
+        return points;
+    }
+    
+    /**
+     * Get number of ints used to store the path (diagnostics)
+     */
+    public int getStoredInts() {
+        return data.length;
+    }
+    
+    public boolean isCompressed() {
+        return compressed;
+    }
+}
@@ -0,0 +1,170 @@
+package mas.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PathCache shares computed paths between agents.
+ * Most trips go between the same few waypoints (tables, cashier, exit, transit points),
+ * so paths are keyed by (start cell, goal cell) and reused instead of re-running A*.
+ * The cache is split into independently locked segments, each evicting in LRU order.
+ * Paths are stored packed (PackedPath), so a cached path costs a few ints rather than
+ * one array object per step.
+ */
+public class PathCache {
+    private static PathCache instance;
+    
+    private static final int SEGMENT_COUNT = 16; // Must be a power of two
+    private static final int DEFAULT_CAPACITY = 2048;
+    
+    private final Segment[] segments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    /**
+     * One lock-protected LRU map
+     */
+    private static class Segment extends LinkedHashMap<Long, PackedPath> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+        
+        Segment(int capacity) {
+            super(16, 0.75f, true); // Access order = LRU
+            this.capacity = capacity;
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, PackedPath> eldest) {
+            return size() > capacity;
+        }
+    }
+    
+    private PathCache(int capacity) {
+        segments = new Segment[SEGMENT_COUNT];
+        int perSegment = Math.max(1, capacity / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+    
+    public static synchronized PathCache getInstance() {
+        if (instance == null) {
+            instance = new PathCache(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+    
+    /**
+     * Get a path from start to goal, computing it with A* on a cache miss.
+     * @return Shared packed path, or PackedPath.EMPTY if no path found
+     */
+    public PackedPath findPath(int startX, int startY, int goalX, int goalY) {
+        if (!GridEnvironment.isValidPosition(startX, startY) ||
+            !GridEnvironment.isValidPosition(goalX, goalY)) {
+            return PackedPath.EMPTY;
+        }
+        
+        PackedPath path = getCached(startX, startY, goalX, goalY);
+        if (path != null) {
+            return path;
+        }
+        
+        // Compute outside the lock; a concurrent miss on the same key just computes twice
+        misses.incrementAndGet();
+        path = AStarPathfinding.findPackedPath(startX, startY, goalX, goalY);
+        long key = key(startX, startY, goalX, goalY);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, path);
+        }
+        return path;
+    }
+    
+    /**
+     * Get a cached path without computing it
+     * @return Shared path, or null if not cached
+     */
+    public PackedPath getCached(int startX, int startY, int goalX, int goalY) {
+        if (!GridEnvironment.isValidPosition(startX, startY) ||
+            !GridEnvironment.isValidPosition(goalX, goalY)) {
+            return PackedPath.EMPTY;
+        }
+        long key = key(startX, startY, goalX, goalY);
+        Segment segment = segmentFor(key);
+        PackedPath path;
+        synchronized (segment) {
+            path = segment.get(key);
+        }
+        if (path != null) {
+            hits.incrementAndGet();
+        }
+        return path;
+    }
+    
+    /**
+     * Drop all cached paths (e.g. after the walkable layout changes)
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+    
+    /**
+     * Drop the cached paths that pass through a cell (e.g. a seat that became occupied)
+     */
+    public void evictThrough(int cell) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.values().removeIf(path -> path.contains(cell));
+            }
+        }
+    }
+    
+    /**
+     * Get number of cached paths
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    /**
+     * Get hit rate in [0, 1]
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+    
+    /**
+     * Pack (start cell, goal cell) into a single key
+     */
+    private static long key(int startX, int startY, int goalX, int goalY) {
+        long start = (long) startY * GridEnvironment.GRID_WIDTH + startX;
+        long goal = (long) goalY * GridEnvironment.GRID_WIDTH + goalX;
+        return (start << 32) | goal;
+    }
+    
+    private Segment segmentFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // Spread neighboring cells across segments
+        return segments[(int) (h >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+}
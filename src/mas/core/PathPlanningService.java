@@ -0,0 +1,164 @@
+package mas.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PathPlanningService batches path searches per tick.
+ * Agents submit requests from any thread (JADE behaviours, the tick thread); at the start
+ * of the next tick the whole batch is solved in parallel on a ForkJoin pool and every
+ * result is delivered before any TickListener runs. Identical (start, goal) requests in
+ * a batch are solved once.
+ */
+public class PathPlanningService {
+    private static PathPlanningService instance;
+    
+    private final ConcurrentLinkedQueue<PathRequest> pending = new ConcurrentLinkedQueue<>();
+    private final ForkJoinPool pool;
+    
+    // Statistics
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile int largestBatch = 0;
+    private volatile long lastBatchNanos = 0;
+    
+    /**
+     * A submitted search; the path is filled in when the batch containing it is solved
+     */
+    public static final class PathRequest {
+        private final int startX, startY, goalX, goalY;
+        private volatile PackedPath path; // null until solved
+        
+        private PathRequest(int startX, int startY, int goalX, int goalY) {
+            this.startX = startX;
+            this.startY = startY;
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+        
+        public boolean isDone() {
+            return path != null;
+        }
+        
+        /**
+         * Get the result (shared between requests with the same start and goal)
+         * @return Packed path, empty if no path found, or null if not solved yet
+         */
+        public PackedPath getPath() {
+            return path;
+        }
+        
+        private long key() {
+            long start = (long) startY * GridEnvironment.GRID_WIDTH + startX;
+            long goal = (long) goalY * GridEnvironment.GRID_WIDTH + goalX;
+            return (start << 32) | goal;
+        }
+    }
+    
+    private PathPlanningService() {
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        TickSystem.getInstance().addPreTickTask(this::processPending);
+    }
+    
+    public static synchronized PathPlanningService getInstance() {
+        if (instance == null) {
+            instance = new PathPlanningService();
+        }
+        return instance;
+    }
+    
+    /**
+     * Queue a search for the next tick. Cached paths are returned right away.
+     * @return Request to poll from onTick (isDone() becomes true before the next tick's listeners run)
+     */
+    public PathRequest request(int startX, int startY, int goalX, int goalY) {
+        PathRequest request = new PathRequest(startX, startY, goalX, goalY);
+        requests.incrementAndGet();
+        PackedPath cached = PathCache.getInstance().getCached(startX, startY, goalX, goalY);
+        if (cached != null) {
+            request.path = cached;
+        } else {
+            pending.add(request);
+        }
+        return request;
+    }
+    
+    /**
+     * Solve every request queued so far (runs on the tick thread before listeners)
+     */
+    private void processPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        
+        // Group identical requests so each distinct search runs once
+        Map<Long, List<PathRequest>> groups = new HashMap<>();
+        int count = 0;
+        PathRequest request;
+        while ((request = pending.poll()) != null) {
+            groups.computeIfAbsent(request.key(), k -> new ArrayList<>()).add(request);
+            count++;
+        }
+        List<List<PathRequest>> work = new ArrayList<>(groups.values());
+        
+        if (work.size() == 1) {
+            solve(work.get(0));
+        } else {
+            pool.submit(() -> work.parallelStream().forEach(this::solve)).join();
+        }
+        
+        batches.incrementAndGet();
+        largestBatch = Math.max(largestBatch, count);
+        lastBatchNanos = System.nanoTime() - start;
+    }
+    
+    private void solve(List<PathRequest> group) {
+        PathRequest first = group.get(0);
+        PackedPath path;
+        try {
+            path = PathCache.getInstance().findPath(first.startX, first.startY, first.goalX, first.goalY);
+        } catch (Exception e) {
+            System.err.println("PathPlanningService: Error planning path: " + e.getMessage());
+            path = PackedPath.EMPTY;
+        }
+        for (PathRequest request : group) {
+            request.path = path;
+        }
+    }
+    
+    /**
+     * Get number of requests waiting for the next tick
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    public long getRequestCount() {
+        return requests.get();
+    }
+    
+    public long getBatchCount() {
+        return batches.get();
+    }
+    
+    public int getLargestBatch() {
+        return largestBatch;
+    }
+    
+    /**
+     * Get time spent solving the last batch in milliseconds
+     */
+    public double getLastBatchMillis() {
+        return lastBatchNanos / 1_000_000.0;
+    }
+    
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+}
@@ -0,0 +1,294 @@
+package mas.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ReservationTable records which agent will stand on which cell at which tick.
+ * Moving agents plan a short window ahead with CooperativePathfinding and reserve
+ * every (cell, tick) of that window, so later planners route around them: paths are
+ * conflict-free by construction and no pairwise collision check is needed per tick.
+ * Reservations live in a ring of per-tick hash maps; a slot is recycled when the
+ * tick it described has passed, so stale entries never need an explicit sweep.
+ * The grid is split into lock stripes, so planners on different threads only meet
+ * when they read or reserve cells of the same stripe.
+ *
+ * Agents that stopped at their destination park there: the cell stays theirs, with no end
+ * tick, until they move again. Planners route around parked cells unless the cell is their
+ * own goal (stations such as the cashier are shared). A waiting agent takes its cell for
+ * the whole window, even over other agents' reservations; agents check with holds() that
+ * each step is still theirs before taking it.
+ */
+public class ReservationTable {
+    private static ReservationTable instance;
+    
+    public static final int WINDOW = 16;         // Ticks planned and reserved ahead
+    public static final int REPLAN_INTERVAL = 8; // Ticks walked before the window is planned again
+    private static final int SLOTS = 64;         // Must be a power of two larger than WINDOW
+    private static final int STRIPES = 32;       // Must be a power of two
+    private static final int STRIPE_SHIFT = 3;   // Runs of 8 cells of a row share a stripe
+    private static final int NONE = -1;
+    
+    private static final AtomicInteger nextAgentId = new AtomicInteger(1);
+    private static final boolean enabled = !"false".equalsIgnoreCase(System.getProperty("mas.cooperative"));
+    
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    
+    /**
+     * Reservations of the cells of one stripe, guarded by its lock
+     */
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final IntIntMap[] slots = new IntIntMap[SLOTS]; // Cell -> agent id, one map per tick
+        final long[] slotTicks = new long[SLOTS];
+        final IntIntMap parked = new IntIntMap();       // Cell -> agent parked there last
+        final IntIntMap parkedCount = new IntIntMap();  // Cell -> number of agents parked there
+        
+        Stripe() {
+            for (int i = 0; i < SLOTS; i++) {
+                slots[i] = new IntIntMap();
+                slotTicks[i] = -1;
+            }
+        }
+        
+        int getOwner(int cell, long tick) {
+            int slot = (int) (tick & (SLOTS - 1));
+            return slotTicks[slot] == tick ? slots[slot].get(cell, NONE) : NONE;
+        }
+        
+        void put(int cell, long tick, int agentId) {
+            int slot = (int) (tick & (SLOTS - 1));
+            if (slotTicks[slot] != tick) {
+                slots[slot].clear(); // The slot still describes a past tick
+                slotTicks[slot] = tick;
+            }
+            slots[slot].put(cell, agentId);
+        }
+    }
+    
+    private ReservationTable() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    public static synchronized ReservationTable getInstance() {
+        if (instance == null) {
+            instance = new ReservationTable();
+        }
+        return instance;
+    }
+    
+    /**
+     * Check if moving agents plan cooperatively (disable with -Dmas.cooperative=false)
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Allocate an id for an agent that makes reservations
+     */
+    public static int nextAgentId() {
+        return nextAgentId.getAndIncrement();
+    }
+    
+    private static int stripeIndex(int cell) {
+        return (cell >>> STRIPE_SHIFT) & (STRIPES - 1);
+    }
+    
+    /**
+     * Get the agent that reserved a cell at a tick
+     * @return Agent id, or -1 if the cell is free
+     */
+    public int getOwner(int cell, long tick) {
+        Stripe stripe = stripes[stripeIndex(cell)];
+        stripe.lock.lock();
+        try {
+            return stripe.getOwner(cell, tick);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * Check if an agent may stand on a cell at a tick
+     */
+    public boolean isFree(int cell, long tick, int agentId) {
+        int owner = getOwner(cell, tick);
+        return owner == NONE || owner == agentId;
+    }
+    
+    /**
+     * Check if an agent may step from one cell to another between tick and tick + 1:
+     * the target must be free and no other agent may be coming the opposite way.
+     * Each cell is read on its own; reserveIfFree() checks the steps again atomically.
+     */
+    public boolean canMove(int from, int to, long tick, int agentId) {
+        if (!isFree(to, tick + 1, agentId)) {
+            return false;
+        }
+        if (from == to) {
+            return true;
+        }
+        int oncoming = getOwner(to, tick);
+        return oncoming == NONE || oncoming == agentId || getOwner(from, tick + 1) != oncoming;
+    }
+    
+    /**
+     * Reserve a planned window: cells[i] at tick firstTick + i, replacing other agents' entries
+     */
+    public void reserve(int agentId, int[] cells, long firstTick) {
+        int locked = lockStripes(cells);
+        try {
+            for (int i = 0; i < cells.length; i++) {
+                stripes[stripeIndex(cells[i])].put(cells[i], firstTick + i, agentId);
+            }
+        } finally {
+            unlockStripes(locked);
+        }
+    }
+    
+    /**
+     * Reserve a planned window unless another agent reserved a conflicting cell since it
+     * was planned. Only the stripes of the window's cells are locked.
+     * @return false if a step is no longer allowed; nothing is reserved then
+     */
+    public boolean reserveIfFree(int agentId, int[] cells, long firstTick) {
+        int locked = lockStripes(cells);
+        try {
+            for (int i = 0; i + 1 < cells.length; i++) {
+                if (!canMove(cells[i], cells[i + 1], firstTick + i, agentId)) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < cells.length; i++) {
+                stripes[stripeIndex(cells[i])].put(cells[i], firstTick + i, agentId);
+            }
+            return true;
+        } finally {
+            unlockStripes(locked);
+        }
+    }
+    
+    /**
+     * Check if a step reserved by an agent is still its own: nobody took the cell for that
+     * tick and nobody parked there since, unless it is the agent's goal
+     */
+    public boolean holds(int agentId, int cell, long tick, int goalCell) {
+        return getOwner(cell, tick) == agentId && (cell == goalCell || !isParkedByOther(cell, agentId));
+    }
+    
+    /**
+     * Keep a cell for an agent that stopped on it, until unpark()
+     */
+    public void park(int agentId, int cell) {
+        Stripe stripe = stripes[stripeIndex(cell)];
+        stripe.lock.lock();
+        try {
+            stripe.parked.put(cell, agentId);
+            stripe.parkedCount.put(cell, stripe.parkedCount.get(cell, 0) + 1);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * Give back a cell kept with park()
+     */
+    public void unpark(int agentId, int cell) {
+        Stripe stripe = stripes[stripeIndex(cell)];
+        stripe.lock.lock();
+        try {
+            int count = stripe.parkedCount.get(cell, 0) - 1;
+            if (count > 0) {
+                stripe.parkedCount.put(cell, count);
+                if (stripe.parked.get(cell, NONE) == agentId) {
+                    stripe.parked.put(cell, NONE); // Still parked, by an agent we do not track
+                }
+            } else if (count == 0) {
+                stripe.parkedCount.remove(cell);
+                stripe.parked.remove(cell);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * Check if another agent is parked on a cell
+     */
+    public boolean isParkedByOther(int cell, int agentId) {
+        Stripe stripe = stripes[stripeIndex(cell)];
+        stripe.lock.lock();
+        try {
+            int count = stripe.parkedCount.get(cell, 0);
+            return count > 1 || (count == 1 && stripe.parked.get(cell, NONE) != agentId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+    
+    /**
+     * Release a window reserved with reserve(); entries since taken by other agents are kept
+     */
+    public void release(int agentId, int[] cells, long firstTick) {
+        int locked = lockStripes(cells);
+        try {
+            for (int i = 0; i < cells.length; i++) {
+                long tick = firstTick + i;
+                Stripe stripe = stripes[stripeIndex(cells[i])];
+                int slot = (int) (tick & (SLOTS - 1));
+                if (stripe.slotTicks[slot] == tick && stripe.slots[slot].get(cells[i], NONE) == agentId) {
+                    stripe.slots[slot].remove(cells[i]);
+                }
+            }
+        } finally {
+            unlockStripes(locked);
+        }
+    }
+    
+    /**
+     * Lock the stripes of some cells in ascending order, so two windows never deadlock
+     * @return Bit set of the locked stripes (STRIPES fits in an int)
+     */
+    private int lockStripes(int[] cells) {
+        int mask = 0;
+        for (int cell : cells) {
+            mask |= 1 << stripeIndex(cell);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            if ((mask & (1 << i)) != 0) {
+                stripes[i].lock.lock();
+            }
+        }
+        return mask;
+    }
+    
+    private void unlockStripes(int locked) {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            if ((locked & (1 << i)) != 0) {
+                stripes[i].lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Get number of reservations for a tick (diagnostics)
+     */
+    public int size(long tick) {
+        int size = 0;
+        int slot = (int) (tick & (SLOTS - 1));
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (stripe.slotTicks[slot] == tick) {
+                    size += stripe.slots[slot].size();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+}
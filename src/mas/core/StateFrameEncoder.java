@@ -0,0 +1,224 @@
+package mas.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StateFrameEncoder writes agent states as compact binary frames for the dashboard.
+ * Strings (agent names, types, statuses, containers) are sent once in a string table
+ * and then referred to by index; positions are quantised to 1/scale of a cell, where the
+ * scale is 100 on small grids and lower on grids too large for 100 to fit in 16 bits.
+ * The tables are shared by every stream: a new stream starts with a snapshot frame that
+ * carries the whole table, later frames only carry the strings they add.
+ *
+ * Frame layout (big-endian):
+ *   u32 length of the rest of the frame
+ *   u8  flags (FLAG_SNAPSHOT, FLAG_RESET)
+ *   u32 tick
+ *   u8  position scale (positions below are cells * scale)
+ *   u16 new strings, each: u8 kind, u16 index, u16 byte length, UTF-8 bytes
+ *   u16 states, each: u16 agent, u8 type, u8 status, u8 container, u16 x, u16 y
+ *   u16 removed agents, each: u16 agent
+ *
+ * Status indexes below AgentStatus.values().length are the AgentStatus ordinals.
+ */
+public class StateFrameEncoder {
+    public static final int FLAG_SNAPSHOT = 1;   // The frame holds every agent, forget the others
+    public static final int FLAG_RESET = 2;      // The frame holds the whole string table, forget the old one
+    public static final int KIND_AGENT = 0;
+    public static final int KIND_TYPE = 1;
+    public static final int KIND_STATUS = 2;
+    public static final int KIND_CONTAINER = 3;
+    private static final int POSITION_SCALE = Math.min(100,
+        0xFFFF / Math.max(GridEnvironment.GRID_WIDTH, GridEnvironment.GRID_HEIGHT));
+    private static final int MAX_POSITION = 0xFFFF;
+    
+    private final StringTable[] tables = {
+        new StringTable(KIND_AGENT, 60000),  // Leaves room for the other tables in a snapshot's u16 string count
+        new StringTable(KIND_TYPE, 0xFF),
+        new StringTable(KIND_STATUS, 0xFF),
+        new StringTable(KIND_CONTAINER, 0xFF)
+    };
+    private final List<Entry> added = new ArrayList<>();        // Strings not sent in a batch frame yet
+    private final List<Entry> allEntries = new ArrayList<>();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    
+    public StateFrameEncoder() {
+        reset();
+    }
+    
+    /**
+     * Forget every string sent; the next frames must start with a snapshot (FLAG_RESET)
+     */
+    public synchronized void reset() {
+        for (StringTable table : tables) {
+            table.clear();
+        }
+        for (AgentStatus status : AgentStatus.values()) {
+            tables[KIND_STATUS].indexOf(status.toString());
+        }
+        added.clear(); // Streams get the tables from their next snapshot
+    }
+    
+    /**
+     * Check if a table is close to its index limit; reset() and send snapshots then
+     */
+    public synchronized boolean isNearlyFull() {
+        for (StringTable table : tables) {
+            if (table.size() > table.limit - 64) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Encode a batch: the states that changed and the agents removed, plus the strings
+     * they use that were not sent before
+     */
+    public synchronized byte[] encode(long tick, Collection<AgentState> states, Collection<String> removed) {
+        for (AgentState state : states) {
+            register(state);
+        }
+        byte[] frame = write(0, tick, added, states, removed);
+        added.clear();
+        return frame;
+    }
+    
+    /**
+     * Encode every known agent for a new stream, with the whole string table
+     */
+    public synchronized byte[] encodeSnapshot(long tick, Collection<AgentState> states) {
+        // Strings first seen here stay in added, the other streams get them with the next batch
+        for (AgentState state : states) {
+            register(state);
+        }
+        allEntries.clear();
+        for (StringTable table : tables) {
+            allEntries.addAll(table.entries);
+        }
+        return write(FLAG_SNAPSHOT | FLAG_RESET, tick, allEntries, states, List.of());
+    }
+    
+    private void register(AgentState state) {
+        tables[KIND_AGENT].indexOf(state.getId());
+        tables[KIND_TYPE].indexOf(state.getType());
+        tables[KIND_STATUS].indexOf(state.getStatus());
+        tables[KIND_CONTAINER].indexOf(state.getContainer());
+    }
+    
+    private byte[] write(int flags, long tick, List<Entry> strings, Collection<AgentState> states, Collection<String> removed) {
+        bytes.reset();
+        int removedPosition;
+        int removedCount = 0;
+        try {
+            out.writeInt(0); // Length, filled in below
+            out.writeByte(flags);
+            out.writeInt((int) tick);
+            out.writeByte(POSITION_SCALE);
+            out.writeShort(strings.size());
+            for (Entry entry : strings) {
+                out.writeByte(entry.kind);
+                out.writeShort(entry.index);
+                out.writeShort(entry.utf8.length);
+                out.write(entry.utf8);
+            }
+            out.writeShort(states.size());
+            for (AgentState state : states) {
+                out.writeShort(tables[KIND_AGENT].indexOf(state.getId()));
+                out.writeByte(tables[KIND_TYPE].indexOf(state.getType()));
+                out.writeByte(tables[KIND_STATUS].indexOf(state.getStatus()));
+                out.writeByte(tables[KIND_CONTAINER].indexOf(state.getContainer()));
+                out.writeShort(quantise(state.getX()));
+                out.writeShort(quantise(state.getY()));
+            }
+            removedPosition = bytes.size();
+            out.writeShort(0); // Count, filled in below
+            for (String agentName : removed) {
+                Integer index = tables[KIND_AGENT].indexes.get(agentName);
+                if (index != null) { // Agents never sent are not shown
+                    out.writeShort(index);
+                    removedCount++;
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Not thrown by an in-memory stream
+        }
+        byte[] frame = bytes.toByteArray();
+        putInt(frame, 0, frame.length - 4);
+        frame[removedPosition] = (byte) (removedCount >>> 8);
+        frame[removedPosition + 1] = (byte) removedCount;
+        return frame;
+    }
+    
+    private static void putInt(byte[] frame, int position, int value) {
+        frame[position] = (byte) (value >>> 24);
+        frame[position + 1] = (byte) (value >>> 16);
+        frame[position + 2] = (byte) (value >>> 8);
+        frame[position + 3] = (byte) value;
+    }
+    
+    private static int quantise(double value) {
+        return (int) Math.max(0, Math.min(MAX_POSITION, Math.round(value * POSITION_SCALE)));
+    }
+    
+    /**
+     * One kind of string, indexed in the order first seen
+     */
+    private final class StringTable {
+        final int kind;
+        final int limit;
+        final Map<String, Integer> indexes = new HashMap<>();
+        final List<Entry> entries = new ArrayList<>();
+        
+        StringTable(int kind, int limit) {
+            this.kind = kind;
+            this.limit = limit;
+        }
+        
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index != null) {
+                return index;
+            }
+            if (entries.size() >= limit) {
+                return limit - 1; // Full until the next reset(), see isNearlyFull()
+            }
+            Entry entry = new Entry(kind, entries.size(), value.getBytes(StandardCharsets.UTF_8));
+            indexes.put(value, entry.index);
+            entries.add(entry);
+            added.add(entry);
+            return entry.index;
+        }
+        
+        int size() {
+            return entries.size();
+        }
+        
+        void clear() {
+            indexes.clear();
+            entries.clear();
+        }
+    }
+    
+    private static final class Entry {
+        final int kind;
+        final int index;
+        final byte[] utf8;
+        
+        Entry(int kind, int index, byte[] utf8) {
+            this.kind = kind;
+            this.index = index;
+            this.utf8 = utf8;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package mas.core;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * StatePublisher sends agent states to the Flask API from a single background thread.
+ * Only the latest state of each agent is kept (an agent that updates again before its
+ * previous state went out replaces it), agents waiting to be sent are held in a bounded
+ * queue, and HTTP connections are reused (keep-alive) instead of opened per update.
+ *
+ * At the end of every tick the agents updated during the tick are sent as one batch
+ * to /update/batch. In delta mode (default, -Dmas.publish.delta=false to turn off)
+ * an agent entry only holds the fields that changed since the last batch; full states
+ * are sent again every few seconds so a restarted API fills up again.
+ * Listeners (the embedded dashboard) get the same batches in-process.
+ */
+public class StatePublisher {
+    private static StatePublisher instance;
+    private static final int MAX_PENDING_AGENTS = 1024;
+    private static final long RETRY_DELAY_MS = 1000;                 // Pause after a failed request (API down)
+    private static final long IDLE_FLUSH_NANOS = 100_000_000L;       // Send at least every 100ms when ticks are stopped
+    private static final long FULL_SYNC_INTERVAL_NANOS = 5_000_000_000L;
+    private static final AgentState REMOVED = new AgentState("", "", 0, 0, "", ""); // Marks an agent removal, compared by identity
+    
+    private final Map<String, AgentState> latest = new ConcurrentHashMap<>();  // Agent name -> state not sent yet
+    private final BlockingQueue<String> dirty = new ArrayBlockingQueue<>(MAX_PENDING_AGENTS);
+    private final boolean delta = !"false".equalsIgnoreCase(System.getProperty("mas.publish.delta"));
+    private final Thread sender;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean apiEnabled = true;
+    
+    // Sender thread only
+    private final Map<String, AgentState> lastSent = new HashMap<>();
+    private final StringBuilder batch = new StringBuilder(16 * 1024);
+    private final List<AgentState> states = new ArrayList<>();
+    private final List<String> removed = new ArrayList<>();
+    private final byte[] drainBuffer = new byte[512];
+    private long lastFullSync = System.nanoTime();
+    
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile long sentCount = 0;   // Written by the sender thread only
+    private volatile long batchCount = 0;  // Written by the sender thread only
+    private volatile int lastBatchSize = 0;
+    private volatile long failedCount = 0; // Written by the sender thread only
+    
+    private StatePublisher() {
+        sender = new Thread(this::runSender, "StatePublisher");
+        sender.setDaemon(true);
+        sender.start();
+        TickSystem.getInstance().addPostTickTask(this::flush);
+    }
+    
+    public static synchronized StatePublisher getInstance() {
+        if (instance == null) {
+            instance = new StatePublisher();
+        }
+        return instance;
+    }
+    
+    /**
+     * Queue the state of an agent, replacing any state of it not sent yet
+     */
+    public void publish(AgentState state) {
+        enqueue(state.getId(), state);
+    }
+    
+    /**
+     * Queue the removal of an agent from the dashboard, replacing any pending state
+     */
+    public void remove(String agentName) {
+        enqueue(agentName, REMOVED);
+    }
+    
+    private void enqueue(String agentName, AgentState value) {
+        if (latest.put(agentName, value) != null) {
+            coalescedCount.incrementAndGet();
+            return; // Already queued, the sender picks up the new value
+        }
+        if (!dirty.offer(agentName)) {
+            latest.remove(agentName); // Next update of this agent tries again
+            droppedCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * End of tick: wake the sender to send what the tick produced (runs on the tick thread)
+     */
+    private void flush() {
+        if (!dirty.isEmpty()) {
+            LockSupport.unpark(sender);
+        }
+    }
+    
+    private void runSender() {
+        while (true) {
+            try {
+                LockSupport.parkNanos(IDLE_FLUSH_NANOS);
+                if (!dirty.isEmpty() && !sendBatch()) {
+                    Thread.sleep(RETRY_DELAY_MS); // Newer states replace the lost ones meanwhile
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                // Keep the sender alive whatever happens
+            }
+        }
+    }
+    
+    /**
+     * Hand every queued agent to the listeners and send them to the API in one request
+     * @return false if the request failed
+     */
+    private boolean sendBatch() {
+        states.clear();
+        removed.clear();
+        String agentName;
+        while ((agentName = dirty.poll()) != null) {
+            AgentState state = latest.remove(agentName);
+            if (state == REMOVED) {
+                removed.add(agentName);
+            } else if (state != null) {
+                states.add(state);
+            }
+        }
+        if (states.isEmpty() && removed.isEmpty()) {
+            return true;
+        }
+        long tick = TickSystem.getInstance().getCurrentTick();
+        for (Listener listener : listeners) {
+            try {
+                listener.onBatch(tick, states, removed);
+            } catch (Exception e) {
+                System.err.println("StatePublisher: Error in listener: " + e.getMessage());
+            }
+        }
+        
+        if (apiEnabled && !post(BaseAgent.API_BATCH_URL, buildBatchJson(tick))) {
+            failedCount++;
+            lastSent.clear(); // The API may not have these states, send full ones next time
+            return false;
+        }
+        sentCount += states.size();
+        batchCount++;
+        lastBatchSize = states.size();
+        return true;
+    }
+    
+    private String buildBatchJson(long tick) {
+        long now = System.nanoTime();
+        if (now - lastFullSync > FULL_SYNC_INTERVAL_NANOS) {
+            lastSent.clear();
+            lastFullSync = now;
+        }
+        batch.setLength(0);
+        batch.append("{\"tick\":").append(tick).append(",\"delta\":").append(delta).append(",\"agents\":[");
+        for (int i = 0; i < states.size(); i++) {
+            AgentState state = states.get(i);
+            if (i > 0) {
+                batch.append(',');
+            }
+            // An entry with just the id still refreshes the agent's last_seen
+            state.appendJson(batch, delta ? lastSent.get(state.getId()) : null);
+            if (delta) {
+                lastSent.put(state.getId(), state);
+            }
+        }
+        batch.append("],\"removed\":[");
+        for (int i = 0; i < removed.size(); i++) {
+            if (i > 0) {
+                batch.append(',');
+            }
+            AgentState.appendString(batch, removed.get(i));
+            lastSent.remove(removed.get(i));
+        }
+        return batch.append("]}").toString();
+    }
+    
+    /**
+     * Receive every batch on the sender thread, e.g. to stream it to a dashboard.
+     * The lists are reused for the next batch and must not be kept.
+     */
+    public interface Listener {
+        void onBatch(long tick, List<AgentState> states, List<String> removed);
+    }
+    
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Turn sending to the Flask API on or off (listeners still get every batch)
+     */
+    public void setApiEnabled(boolean enabled) {
+        apiEnabled = enabled;
+    }
+    
+    /**
+     * POST a body and read the whole response, so the connection goes back to the
+     * keep-alive pool instead of being closed
+     */
+    private boolean post(String address, String json) {
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection) new URL(address).openConnection();
+            conn.setRequestMethod("POST");
+            conn.setConnectTimeout(1000);
+            conn.setReadTimeout(1000);
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setDoOutput(true);
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+            int code = conn.getResponseCode();
+            try (InputStream in = code < 400 ? conn.getInputStream() : conn.getErrorStream()) {
+                if (in != null) {
+                    while (in.read(drainBuffer) != -1) {
+                        // Drain
+                    }
+                }
+            }
+            return code < 400;
+        } catch (Exception e) {
+            // Fail silently to avoid console spam if API is down
+            if (conn != null) {
+                conn.disconnect();
+            }
+            return false;
+        }
+    }
+    
+    public boolean isDeltaMode() {
+        return delta;
+    }
+    
+    /**
+     * Get number of agent states sent
+     */
+    public long getSentCount() {
+        return sentCount;
+    }
+    
+    /**
+     * Get number of batch requests sent
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+    
+    /**
+     * Get number of agent states in the last batch
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+    
+    /**
+     * Get number of updates replaced by a newer state of the same agent before being sent
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+    
+    /**
+     * Get number of updates dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+    
+    /**
+     * Get number of requests that failed (API down or slow)
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+    
+    /**
+     * Get number of agents with a state waiting to be sent
+     */
+    public int getPendingCount() {
+        return dirty.size();
+    }
+}
@@ -0,0 +1,134 @@
+package mas.core;
+
+import jade.core.Agent;
+import jade.core.behaviours.SimpleBehaviour;
+
+/**
+ * TickBehaviour is a TickerBehaviour driven by TickSystem ticks instead of wall-clock
+ * milliseconds, so delays follow the speed factor and virtual time.
+ * onTick() runs on the agent's thread every period ticks until stop() is called.
+ * The behaviour is blocked between wakeups and costs nothing while waiting.
+ */
+public abstract class TickBehaviour extends SimpleBehaviour {
+    private static final long serialVersionUID = 1L;
+    
+    private final long period;
+    private long wakeupTick;
+    private volatile boolean due;  // Set by the tick thread; serialized so a pending wakeup moves with the agent
+    private boolean finished = false;
+    private int tickCount = 0;
+    private transient TimerWheel.Timer wakeup;
+    
+    /**
+     * @param agent Owner agent
+     * @param period Ticks between calls to onTick() (at least 1)
+     */
+    public TickBehaviour(Agent agent, long period) {
+        super(agent);
+        this.period = Math.max(1, period);
+    }
+    
+    /**
+     * @param agent Owner agent
+     * @param period Duration between calls to onTick()
+     */
+    public TickBehaviour(Agent agent, TickDuration period) {
+        this(agent, period.getTicks());
+    }
+    
+    @Override
+    public void onStart() {
+        scheduleWakeup(TickSystem.getInstance().getCurrentTick() + period);
+    }
+    
+    @Override
+    public final void action() {
+        if (!due) {
+            block();
+            if (due) {
+                restart(); // Woken between the check and block()
+            }
+            return;
+        }
+        
+        due = false;
+        try {
+            if (!finished) {
+                tickCount++;
+                onTick();
+            }
+        } finally {
+            TickSystem.getInstance().behaviourFinished(this);
+        }
+        if (!finished) {
+            scheduleWakeup(wakeupTick + period);
+        }
+    }
+    
+    /**
+     * Called every period ticks
+     */
+    protected abstract void onTick();
+    
+    @Override
+    public boolean done() {
+        return finished;
+    }
+    
+    /**
+     * Stop the behaviour; it is removed after the current action
+     */
+    public void stop() {
+        finished = true;
+        if (wakeup != null) {
+            wakeup.cancel();
+        }
+    }
+    
+    /**
+     * Get number of times onTick() has run
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+    
+    public long getPeriod() {
+        return period;
+    }
+    
+    private void scheduleWakeup(long tick) {
+        TickSystem ticks = TickSystem.getInstance();
+        wakeupTick = Math.max(tick, ticks.getCurrentTick() + 1);
+        wakeup = ticks.scheduleAt(wakeupTick, myAgent.getLocalName(), this::fire);
+    }
+    
+    /**
+     * Wake the behaviour (runs on the tick thread)
+     */
+    private void fire() {
+        if (finished || !isOwnerAlive()) {
+            return;
+        }
+        TickSystem.getInstance().behaviourFired(this);
+        due = true;
+        restart();
+    }
+    
+    boolean isOwnerAlive() {
+        return myAgent != null && myAgent.isAlive();
+    }
+    
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // The agent moved: the copy left behind is dropped by the tick thread once its
+        // thread ends, this copy takes over the pending wakeup
+        if (finished) {
+            return;
+        }
+        if (due) {
+            TickSystem.getInstance().behaviourFired(this);
+        } else {
+            scheduleWakeup(wakeupTick);
+        }
+    }
+}
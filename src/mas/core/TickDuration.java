@@ -12,11 +12,15 @@ public enum TickDuration {
     CLIENT_ORDERING(20),            // 1 second
     CLIENT_WAITING_IN_QUEUE(10),    // 0.5 seconds
     CLIENT_MOVEMENT_BASE(10),       // Base movement time (0.5 seconds)
+    CLIENT_START_CHECK_INTERVAL(20), // 1 second (waiting for the simulation to start)
+    CLIENT_MENU_RETRY(40),          // 2 seconds before asking for the menu again
     
     // Waiter activities
     WAITER_TAKING_ORDER(20),        // 1 second
     WAITER_DELIVERING_FOOD(10),     // 0.5 seconds
     WAITER_MOVEMENT_BASE(10),       // Base movement time
+    WAITER_NEXT_ORDER_DELAY(10),    // 0.5 seconds before taking the next queued order
+    WAITER_HEARTBEAT_INTERVAL(40),  // 2 seconds between heartbeat traces
     
     // Chef activities
     CHEF_PREPARING_ORDER(60),       // 3 seconds
@@ -25,6 +29,10 @@ public enum TickDuration {
     // Cashier activities
     CASHIER_PROCESSING_PAYMENT(20), // 1 second
     
+    // Boss activities
+    BOSS_START_CHECK_INTERVAL(20),  // 1 second (waiting for the simulation to start)
+    BOSS_STATUS_REPORT_INTERVAL(100), // 5 seconds between status (mood) reports
+    
     // System activities
     ENTER_AGENT_CHECK_INTERVAL(40), // 2 seconds (checking for available tables)
     EXIT_AGENT_CHECK_INTERVAL(40), //  2    seconds (checking for clients to remove)
@@ -1,24 +1,114 @@
 package mas.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * TickSystem manages simulation timing.
  * Each tick = 0.05 seconds (50ms)
+ * Ticks run at a fixed rate against System.nanoTime deadlines; when listeners take
+ * longer than the interval, the CatchUpPolicy decides how the loop recovers.
+ * Listeners are grouped into shards by TickListener.getShardKey(); shards run in
+ * parallel on a ForkJoin pool and the tick ends when all of them are done.
+ * A tick runs in phases (see Phase): every listener finishes one phase before any
+ * listener starts the next, and post-tick tasks run once the last phase is done.
  */
 public class TickSystem {
     private static TickSystem instance;
     private long baseTickInterval = 50; // 0.05 seconds = 50 milliseconds (base)
     private long tickInterval = 50; // Actual tick interval (base / speedFactor)
     private double speedFactor = 1.0; // Speed multiplier (1.0 = normal, higher = faster)
-    private long currentTick = 0;
-    private List<TickListener> listeners;
-    private boolean running = false;
+    private volatile long currentTick = 0;
+    private volatile long stopTick = Long.MAX_VALUE;
+    
+    // Virtual time: the next tick starts as soon as the previous one's work is done
+    private static final int QUIESCENCE_CHECKS = 3;                  // Consecutive idle scans before a tick counts as done
+    static final long QUIESCENCE_TIMEOUT_NANOS = 200_000_000L; // Give up waiting for agents after 200ms wall time
+    private static final long QUIESCENCE_PARK_NANOS = 50_000L;       // Pause between quiescence scans
+    private volatile boolean virtualTime = "virtual".equalsIgnoreCase(System.getProperty("mas.tick.mode"));
+    private volatile long quiescenceTimeouts;
+    
+    // Deterministic mode (see DeterministicRun): serial dispatch, one event settled at a time
+    private volatile boolean deterministic = false;
+    private final List<OrderedEvent> dueEvents = new ArrayList<>(); // Tick thread only
+    
+    // Delayed tasks (see schedule) and tick-triggered work still running on agent threads
+    private final TimerWheel timers = new TimerWheel();
+    private final Set<TickBehaviour> firedBehaviours = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> migrations = new ConcurrentHashMap<>(); // Agent name -> start (nanoTime)
+    private static final long MIGRATION_TIMEOUT_NANOS = 1_000_000_000L;   // Assume a move failed after 1s wall time
+    
+    // Listener registry: addListener/removeListener only queue a change, which the tick
+    // thread applies between ticks, so dispatch reads the shard array without locking
+    private final ConcurrentLinkedQueue<RegistryChange> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final Map<TickListener, String> registeredKeys = new IdentityHashMap<>(); // Listener -> shard key
+    private final Map<String, ShardGroup> groups = new TreeMap<>();
+    
+    // Parallel dispatch (see ShardTask)
+    private static final int SHARD_SIZE = 64;            // Max listeners per shard, larger groups are split
+    private static final int PARALLEL_MIN_LISTENERS = 32; // Below this, dispatch on the tick thread
+    private final int dispatchThreads = Math.max(1, Integer.getInteger("mas.tick.threads", Runtime.getRuntime().availableProcessors()));
+    private final ForkJoinPool dispatchPool;
+    private final DispatchTask dispatchTask = new DispatchTask();
+    private volatile ShardTask[] shards = new ShardTask[0];
+    private volatile int listenerCount = 0;
+    private volatile Runnable[] preTickTasks = new Runnable[0];
+    private volatile Runnable[] postTickTasks = new Runnable[0];
+    private volatile Phase currentPhase = Phase.DECIDE;
+    private volatile boolean running = false;
     private Thread tickThread;
+    private volatile long periodNanos; // Exact tick interval, tickInterval is rounded to ms
+    
+    /**
+     * What to do when ticks take longer than the tick interval and the loop falls behind
+     */
+    public enum CatchUpPolicy {
+        SKIP,      // Drop the missed ticks and stay on the original schedule
+        BURST,     // Run missed ticks back to back (up to MAX_BURST_TICKS) to catch up
+        SLOW_DOWN  // Let simulated time run slower than wall time until load drops
+    }
+    
+    /**
+     * Stages of a tick, run in this order with a barrier between them
+     */
+    public enum Phase {
+        MOVE,    // Integrate movement, no decisions
+        DECIDE,  // React to the state reached in MOVE (arrivals, timers)
+        PUBLISH  // Collect state for output; I/O happens once per tick in post-tick tasks
+    }
+    
+    private static final Phase[] PHASES = Phase.values();
+    
+    private static final int MAX_BURST_TICKS = 5;
+    private static final double LOAD_SMOOTHING = 0.1;
+    private static final long OVERRUN_REPORT_INTERVAL = 100; // Ticks between overrun messages
+    private volatile CatchUpPolicy catchUpPolicy = defaultCatchUpPolicy();
+    
+    // Timing statistics (written by the tick thread only)
+    private volatile long startNanos;
+    private volatile long simulatedNanos;
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+    private volatile long lastWorkNanos;
+    private volatile long lastOverrunNanos;
+    private volatile long overrunCount;
+    private volatile long skippedTicks;
+    private volatile double load;
+    private long lastOverrunReport = -OVERRUN_REPORT_INTERVAL;
     
     private TickSystem() {
-        listeners = new ArrayList<>();
+        dispatchPool = dispatchThreads > 1 ? new ForkJoinPool(dispatchThreads) : null;
         updateTickInterval();
     }
     
@@ -47,6 +137,31 @@ public class TickSystem {
      */
     private void updateTickInterval() {
         tickInterval = (long)(baseTickInterval / speedFactor);
+        periodNanos = (long)(baseTickInterval * 1_000_000L / speedFactor);
+    }
+    
+    private static CatchUpPolicy defaultCatchUpPolicy() {
+        String value = System.getProperty("mas.tick.catchup", "burst").trim().toLowerCase();
+        switch (value) {
+            case "skip":
+                return CatchUpPolicy.SKIP;
+            case "slow":
+            case "slow_down":
+                return CatchUpPolicy.SLOW_DOWN;
+            default:
+                return CatchUpPolicy.BURST;
+        }
+    }
+    
+    /**
+     * Select how the loop catches up after overruns (can also be set with -Dmas.tick.catchup=skip|burst|slow)
+     */
+    public void setCatchUpPolicy(CatchUpPolicy policy) {
+        catchUpPolicy = policy;
+    }
+    
+    public CatchUpPolicy getCatchUpPolicy() {
+        return catchUpPolicy;
     }
     
     public static TickSystem getInstance() {
@@ -72,21 +187,275 @@ public class TickSystem {
         }
         
         running = true;
-        tickThread = new Thread(() -> {
-            while (running) {
+        tickThread = new Thread(this::runTicks, "TickSystem");
+        tickThread.setDaemon(true);
+        tickThread.start();
+        System.out.println("TickSystem: Started (Tick interval: " + tickInterval + "ms, catch-up: " + catchUpPolicy + ")");
+    }
+    
+    /**
+     * Tick loop. Deadlines are fixed-rate (previous deadline + period) rather than
+     * "sleep one period after the work", so listener time does not accumulate as drift.
+     */
+    private void runTicks() {
+        startNanos = System.nanoTime();
+        simulatedNanos = 0;
+        long deadline = startNanos + periodNanos;
+        while (running) {
+            if (virtualTime) {
+                deadline = System.nanoTime();
+            } else if (!waitUntil(deadline)) {
+                break;
+            }
+            long begin = System.nanoTime();
+            currentTick++;
+            simulatedNanos += periodNanos;
+            timers.advanceTo(currentTick);
+            if (!dueEvents.isEmpty()) {
+                runDueEvents();
+            }
+            runPreTickTasks();
+            notifyListeners();
+            runPostTickTasks();
+            if (virtualTime) {
+                awaitQuiescence();
+            }
+            long end = System.nanoTime();
+            recordTick(begin - deadline, end - begin);
+            if (currentTick >= stopTick) {
+                running = false;
+                stopTick = Long.MAX_VALUE;
+                System.out.println("TickSystem: Reached tick " + currentTick + " (" + String.format("%.1f", getSimulatedSeconds()) + "s simulated)");
+                break;
+            }
+            deadline = nextDeadline(deadline, end);
+        }
+    }
+    
+    /**
+     * Wait until the work this tick started has finished: every fired TickBehaviour has
+     * run and no listener reports pending work, for QUIESCENCE_CHECKS scans in a row
+     * (agents react to messages on their own threads, so a single idle scan may be early).
+     */
+    private void awaitQuiescence() {
+        long limit = System.nanoTime() + QUIESCENCE_TIMEOUT_NANOS;
+        int idleChecks = 0;
+        while (running && idleChecks < QUIESCENCE_CHECKS) {
+            if (isIdle()) {
+                idleChecks++;
+            } else {
+                idleChecks = 0;
+                if (System.nanoTime() - limit > 0) {
+                    quiescenceTimeouts++;
+                    return;
+                }
+            }
+            LockSupport.parkNanos(QUIESCENCE_PARK_NANOS); // Let agent threads run without spinning
+        }
+    }
+    
+    private boolean isIdle() {
+        boolean idle = true;
+        for (TickBehaviour behaviour : firedBehaviours) {
+            if (!behaviour.isOwnerAlive()) {
+                firedBehaviours.remove(behaviour); // Agent was deleted or moved away before running it
+            } else {
+                idle = false;
+            }
+        }
+        long now = System.nanoTime();
+        for (Map.Entry<String, Long> migration : migrations.entrySet()) {
+            if (now - migration.getValue() > MIGRATION_TIMEOUT_NANOS) {
+                migrations.remove(migration.getKey());
+            } else {
+                idle = false;
+            }
+        }
+        // Ask every listener, so each can update its own progress tracking
+        for (ShardTask shard : shards) {
+            for (TickListener listener : shard.members) {
                 try {
-                    Thread.sleep(tickInterval);
-                    currentTick++;
-                    notifyListeners();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+                    if (listener.hasPendingWork()) {
+                        idle = false;
+                    }
+                } catch (Exception e) {
+                    // Treat as idle
                 }
             }
-        });
-        tickThread.setDaemon(true);
-        tickThread.start();
-        System.out.println("TickSystem: Started (Tick interval: " + tickInterval + "ms)");
+        }
+        return idle;
+    }
+    
+    /**
+     * Run a callback on the tick thread after a number of ticks, before that tick's listeners
+     * @param ticks Delay in ticks (at least 1)
+     * @return Handle to cancel the callback
+     */
+    public TimerWheel.Timer schedule(long ticks, Runnable callback) {
+        return timers.schedule(ticks, settled(callback));
+    }
+    
+    /**
+     * Run a callback on the tick thread when a tick is reached (next tick if already reached)
+     */
+    public TimerWheel.Timer scheduleAt(long tick, Runnable callback) {
+        return timers.scheduleAt(tick, settled(callback));
+    }
+    
+    /**
+     * Like scheduleAt, but in deterministic mode callbacks due on the same tick run in
+     * order of their key (e.g. agent name) instead of the order they were scheduled in
+     */
+    TimerWheel.Timer scheduleAt(long tick, String orderKey, Runnable callback) {
+        if (!deterministic) {
+            return timers.scheduleAt(tick, callback);
+        }
+        return timers.scheduleAt(tick, () -> dueEvents.add(new OrderedEvent(orderKey, callback)));
+    }
+    
+    private void runDueEvents() {
+        dueEvents.sort(null); // Stable: events with the same key keep their order
+        for (OrderedEvent event : dueEvents) {
+            try {
+                event.callback.run();
+            } catch (Exception e) {
+                System.err.println("TickSystem: Error in timer callback: " + e.getMessage());
+            }
+            settle();
+        }
+        dueEvents.clear();
+    }
+    
+    /**
+     * In deterministic mode, let the work a callback triggers finish before the next
+     * callback of the same tick runs, so events are processed in timer order
+     */
+    private Runnable settled(Runnable callback) {
+        if (!deterministic) {
+            return callback;
+        }
+        return () -> {
+            callback.run();
+            settle();
+        };
+    }
+    
+    /**
+     * In deterministic mode, wait on the tick thread until agents have handled the work
+     * triggered so far (no-op otherwise)
+     */
+    public void settle() {
+        if (deterministic && Thread.currentThread() == tickThread) {
+            awaitQuiescence();
+        }
+    }
+    
+    /**
+     * Deterministic mode: listeners run serially in shard key order and every timer
+     * callback is settled before the next one. Set before agents register.
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+    
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+    
+    /**
+     * Get number of pending schedule() callbacks
+     */
+    public int getScheduledCount() {
+        return timers.size();
+    }
+    
+    void behaviourFired(TickBehaviour behaviour) {
+        firedBehaviours.add(behaviour);
+    }
+    
+    void behaviourFinished(TickBehaviour behaviour) {
+        firedBehaviours.remove(behaviour);
+    }
+    
+    /**
+     * An agent is moving between containers: it is off the listener list until it
+     * arrives, so quiescence has to wait for it explicitly
+     */
+    void migrationStarted(String agentName) {
+        migrations.put(agentName, System.nanoTime());
+    }
+    
+    void migrationFinished(String agentName) {
+        migrations.remove(agentName);
+    }
+    
+    /**
+     * Park until the deadline
+     * @return false if the tick thread was stopped or interrupted
+     */
+    private boolean waitUntil(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                return false;
+            }
+        }
+        return running;
+    }
+    
+    /**
+     * Compute the next deadline after a tick that ended at now, applying the catch-up policy
+     */
+    private long nextDeadline(long deadline, long now) {
+        long period = periodNanos;
+        long next = deadline + period;
+        if (next > now) {
+            return next; // On time
+        }
+        long behind = now - next;
+        switch (catchUpPolicy) {
+            case BURST:
+                if (behind < period * MAX_BURST_TICKS) {
+                    return next; // Run the missed ticks back to back
+                }
+                // Too far behind to catch up: drop the backlog, keep the period grid
+                return skipTo(next, behind, period);
+            case SKIP:
+                return skipTo(next, behind, period);
+            case SLOW_DOWN:
+            default:
+                return now; // Restart the grid from now: simulated time stretches instead
+        }
+    }
+    
+    private long skipTo(long next, long behind, long period) {
+        long missed = behind / period + 1;
+        skippedTicks += missed;
+        return next + missed * period;
+    }
+    
+    /**
+     * Update timing statistics after a tick
+     * @param lag How late the tick started relative to its deadline
+     * @param work Time spent in pre-tick tasks and listeners
+     */
+    private void recordTick(long lag, long work) {
+        lastLagNanos = lag;
+        maxLagNanos = Math.max(maxLagNanos, lag);
+        lastWorkNanos = work;
+        long overrun = work - periodNanos;
+        lastOverrunNanos = Math.max(0, overrun);
+        load += LOAD_SMOOTHING * ((double) work / periodNanos - load);
+        if (overrun > 0) {
+            overrunCount++;
+            if (currentTick - lastOverrunReport >= OVERRUN_REPORT_INTERVAL) {
+                lastOverrunReport = currentTick;
+                System.out.println("TickSystem: Tick " + currentTick + " took " + String.format("%.1f", work / 1e6) +
+                    "ms (interval " + String.format("%.1f", periodNanos / 1e6) + "ms), lag " +
+                    String.format("%.1f", getLagMillis()) + "ms, " + overrunCount + " overruns so far (catch-up: " + catchUpPolicy + ")");
+            }
+        }
     }
     
     /**
@@ -100,6 +469,41 @@ public class TickSystem {
         System.out.println("TickSystem: Stopped at tick " + currentTick);
     }
     
+    /**
+     * Run in virtual time: ticks follow each other as soon as the previous tick's work is
+     * done instead of waiting for the tick interval (can also be set with -Dmas.tick.mode=virtual)
+     */
+    public void setVirtualTime(boolean enabled) {
+        virtualTime = enabled;
+        System.out.println("TickSystem: " + (enabled ? "Virtual time (as fast as possible)" : "Real time"));
+    }
+    
+    public boolean isVirtualTime() {
+        return virtualTime;
+    }
+    
+    /**
+     * Stop the tick loop once a tick is reached
+     * @param tick Last tick to run, or Long.MAX_VALUE to run until stop()
+     */
+    public void stopAt(long tick) {
+        stopTick = tick;
+    }
+    
+    /**
+     * Get simulated time since tick 0 in seconds (ticks * base interval)
+     */
+    public double getSimulatedSeconds() {
+        return currentTick * baseTickInterval / 1000.0;
+    }
+    
+    /**
+     * Get number of virtual-time ticks that ended because agents did not settle in time
+     */
+    public long getQuiescenceTimeouts() {
+        return quiescenceTimeouts;
+    }
+    
     /**
      * Get current tick number
      */
@@ -107,6 +511,13 @@ public class TickSystem {
         return currentTick;
     }
     
+    /**
+     * Get tick interval at speed factor 1.0 in milliseconds
+     */
+    public long getBaseTickInterval() {
+        return baseTickInterval;
+    }
+    
     /**
      * Get tick interval in milliseconds
      */
@@ -114,48 +525,361 @@ public class TickSystem {
         return tickInterval;
     }
     
+    /**
+     * Get how late the last tick started relative to its deadline in milliseconds
+     */
+    public double getLagMillis() {
+        return lastLagNanos / 1_000_000.0;
+    }
+    
+    public double getMaxLagMillis() {
+        return maxLagNanos / 1_000_000.0;
+    }
+    
+    /**
+     * Get time spent in the last tick's tasks and listeners in milliseconds
+     */
+    public double getLastTickMillis() {
+        return lastWorkNanos / 1_000_000.0;
+    }
+    
+    /**
+     * Get how much longer than the tick interval the last tick took in milliseconds (0 if on time)
+     */
+    public double getOverrunMillis() {
+        return lastOverrunNanos / 1_000_000.0;
+    }
+    
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+    
+    /**
+     * Get number of ticks dropped by the SKIP policy (or by BURST when too far behind)
+     */
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+    
+    /**
+     * Get how far simulated time is behind wall time since start in milliseconds
+     */
+    public double getDriftMillis() {
+        if (!running) {
+            return 0;
+        }
+        return Math.max(0, System.nanoTime() - startNanos - simulatedNanos) / 1_000_000.0;
+    }
+    
+    /**
+     * Get smoothed tick work time as a fraction of the tick interval (1.0 = saturated)
+     */
+    public double getLoad() {
+        return load;
+    }
+    
+    /**
+     * Check if ticks take longer than the tick interval on average
+     */
+    public boolean isSaturated() {
+        return load >= 1.0;
+    }
+    
     /**
      * Register a tick listener
      */
     public void addListener(TickListener listener) {
-        synchronized (listeners) {
-            listeners.add(listener);
-        }
+        pendingChanges.add(new RegistryChange(listener, true));
     }
     
     /**
      * Remove a tick listener
      */
     public void removeListener(TickListener listener) {
-        synchronized (listeners) {
-            listeners.remove(listener);
+        pendingChanges.add(new RegistryChange(listener, false));
+    }
+    
+    /**
+     * Register a task that runs on the tick thread at the start of every tick,
+     * before any listener (e.g. delivering work batched during the previous tick)
+     */
+    public synchronized void addPreTickTask(Runnable task) {
+        Runnable[] tasks = Arrays.copyOf(preTickTasks, preTickTasks.length + 1);
+        tasks[tasks.length - 1] = task;
+        preTickTasks = tasks;
+    }
+    
+    private void runPreTickTasks() {
+        runTasks(preTickTasks, "pre-tick");
+    }
+    
+    /**
+     * Register a task that runs on the tick thread after the PUBLISH phase of every tick
+     * (e.g. sending the state collected from the listeners in one go)
+     */
+    public synchronized void addPostTickTask(Runnable task) {
+        Runnable[] tasks = Arrays.copyOf(postTickTasks, postTickTasks.length + 1);
+        tasks[tasks.length - 1] = task;
+        postTickTasks = tasks;
+    }
+    
+    private void runPostTickTasks() {
+        runTasks(postTickTasks, "post-tick");
+    }
+    
+    private static void runTasks(Runnable[] tasks, String kind) {
+        for (Runnable task : tasks) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.err.println("TickSystem: Error in " + kind + " task: " + e.getMessage());
+            }
         }
     }
     
     /**
-     * Notify all listeners of new tick
+     * Notify all listeners of new tick, one phase at a time
      */
     private void notifyListeners() {
-        // Create a copy to avoid ConcurrentModificationException
-        List<TickListener> listenersCopy;
-        synchronized (listeners) {
-            listenersCopy = new ArrayList<>(listeners);
+        if (!pendingChanges.isEmpty()) {
+            applyPendingChanges();
         }
-        
-        for (TickListener listener : listenersCopy) {
+        ShardTask[] current = shards;
+        boolean parallel = !deterministic && dispatchPool != null && current.length >= 2 && listenerCount >= PARALLEL_MIN_LISTENERS;
+        for (Phase phase : PHASES) {
+            currentPhase = phase;
+            if (!parallel) {
+                for (ShardTask shard : current) {
+                    dispatch(shard.members);
+                }
+                continue;
+            }
+            
+            for (ShardTask shard : current) {
+                shard.reinitialize();
+            }
+            dispatchTask.reinitialize();
+            dispatchTask.shards = current;
+            dispatchPool.invoke(dispatchTask); // Returns once every shard has run (end-of-phase barrier)
+        }
+    }
+    
+    private void dispatch(TickListener[] members) {
+        long tick = currentTick;
+        Phase phase = currentPhase;
+        for (TickListener listener : members) {
             try {
-                listener.onTick(currentTick);
+                listener.onPhase(phase, tick);
             } catch (Exception e) {
                 System.err.println("TickSystem: Error notifying listener: " + e.getMessage());
             }
         }
     }
     
+    /**
+     * Apply queued registrations and removals in the order they were made, then rebuild
+     * the shards of the groups that changed
+     */
+    private void applyPendingChanges() {
+        synchronized (registeredKeys) {
+            boolean changed = false;
+            RegistryChange change;
+            while ((change = pendingChanges.poll()) != null) {
+                TickListener listener = change.listener;
+                if (change.add) {
+                    if (registeredKeys.containsKey(listener)) {
+                        continue;
+                    }
+                    String key = shardKeyOf(listener);
+                    registeredKeys.put(listener, key);
+                    groups.computeIfAbsent(key, k -> new ShardGroup()).add(listener);
+                    changed = true;
+                } else {
+                    String key = registeredKeys.remove(listener);
+                    if (key == null) {
+                        continue;
+                    }
+                    ShardGroup group = groups.get(key);
+                    group.remove(listener);
+                    if (group.members.isEmpty()) {
+                        groups.remove(key);
+                    }
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                return;
+            }
+            
+            // Groups are sorted by key, so the layout does not depend on which agent registered first
+            List<ShardTask> result = new ArrayList<>();
+            for (ShardGroup group : groups.values()) {
+                for (ShardTask shard : group.getShards()) {
+                    result.add(shard);
+                }
+            }
+            shards = result.toArray(new ShardTask[0]);
+            listenerCount = registeredKeys.size();
+        }
+    }
+    
+    private static String shardKeyOf(TickListener listener) {
+        try {
+            return listener.getShardKey();
+        } catch (Exception e) {
+            return listener.getClass().getName();
+        }
+    }
+    
+    /**
+     * Get number of shards in the current dispatch layout
+     */
+    public int getShardCount() {
+        if (!running) {
+            applyPendingChanges();
+        }
+        return shards.length;
+    }
+    
+    /**
+     * Get number of registered listeners
+     */
+    public int getListenerCount() {
+        if (!running) {
+            applyPendingChanges();
+        }
+        return listenerCount;
+    }
+    
+    /**
+     * Get number of threads ticks are dispatched on (set with -Dmas.tick.threads)
+     */
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+    
+    /**
+     * A keyed callback due on the current tick (deterministic mode)
+     */
+    private static final class OrderedEvent implements Comparable<OrderedEvent> {
+        private final String key;
+        private final Runnable callback;
+        
+        OrderedEvent(String key, Runnable callback) {
+            this.key = key;
+            this.callback = callback;
+        }
+        
+        @Override
+        public int compareTo(OrderedEvent other) {
+            return key.compareTo(other.key);
+        }
+    }
+    
+    /**
+     * A queued addListener/removeListener call
+     */
+    private static final class RegistryChange {
+        private final TickListener listener;
+        private final boolean add;
+        
+        RegistryChange(TickListener listener, boolean add) {
+            this.listener = listener;
+            this.add = add;
+        }
+    }
+    
+    /**
+     * Listeners sharing a shard key, in registration order. Split into shards of at most
+     * SHARD_SIZE listeners; the split is redone only when the group changes.
+     */
+    private final class ShardGroup {
+        private final LinkedHashSet<TickListener> members = new LinkedHashSet<>(); // O(1) removal, keeps order
+        private ShardTask[] groupShards;
+        
+        void add(TickListener listener) {
+            members.add(listener);
+            groupShards = null;
+        }
+        
+        void remove(TickListener listener) {
+            members.remove(listener);
+            groupShards = null;
+        }
+        
+        ShardTask[] getShards() {
+            if (groupShards == null) {
+                TickListener[] all = members.toArray(new TickListener[0]);
+                groupShards = new ShardTask[(all.length + SHARD_SIZE - 1) / SHARD_SIZE];
+                for (int i = 0; i < groupShards.length; i++) {
+                    int from = i * SHARD_SIZE;
+                    groupShards[i] = new ShardTask(Arrays.copyOfRange(all, from, Math.min(all.length, from + SHARD_SIZE)));
+                }
+            }
+            return groupShards;
+        }
+    }
+    
+    /**
+     * Listeners of one shard, run in order on a single pool thread
+     */
+    private final class ShardTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final TickListener[] members;
+        
+        ShardTask(TickListener[] members) {
+            this.members = members;
+        }
+        
+        @Override
+        protected void compute() {
+            dispatch(members);
+        }
+    }
+    
+    /**
+     * Root task forking every shard of a tick
+     */
+    private static final class DispatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private ShardTask[] shards;
+        
+        @Override
+        protected void compute() {
+            invokeAll(shards);
+        }
+    }
+    
     /**
      * Interface for objects that need to be notified on each tick
      */
     public interface TickListener extends java.io.Serializable {
         void onTick(long tick);
+        
+        /**
+         * Called once per phase of every tick. Listeners that do not split their work
+         * into phases get onTick during DECIDE.
+         */
+        default void onPhase(Phase phase, long tick) {
+            if (phase == Phase.DECIDE) {
+                onTick(tick);
+            }
+        }
+        
+        /**
+         * Listeners with the same key share a shard: they run one after another, in
+         * registration order, on the same thread. Different shards may run in parallel.
+         */
+        default String getShardKey() {
+            return getClass().getName();
+        }
+        
+        /**
+         * In virtual time, the next tick waits while any listener returns true
+         */
+        default boolean hasPendingWork() {
+            return false;
+        }
     }
 }
 
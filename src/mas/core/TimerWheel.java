@@ -0,0 +1,200 @@
+package mas.core;
+
+/**
+ * Hierarchical timer wheel driven by tick numbers.
+ * Four levels of 256 slots: level 0 holds timers due within 256 ticks, level 1 within
+ * 65536 ticks, and so on. A timer is linked into one slot (O(1) insert and cancel);
+ * when level 0 wraps around, the matching slot of the level above is cascaded down.
+ * Each timer is moved at most once per level, so firing is O(1) amortized per timer
+ * no matter how many are pending.
+ */
+public class TimerWheel {
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+    
+    private final Timer[][] heads = new Timer[LEVELS][SLOTS];
+    private final Timer[][] tails = new Timer[LEVELS][SLOTS];
+    private long now = 0;
+    private int size = 0;
+    
+    /**
+     * A pending callback; cancel() unlinks it in O(1)
+     */
+    public final class Timer {
+        private final long expiry;
+        private final Runnable callback;
+        private Timer prev, next;
+        private int level = -1, slot; // level -1 = not linked
+        private volatile boolean cancelled;
+        
+        private Timer(long expiry, Runnable callback) {
+            this.expiry = expiry;
+            this.callback = callback;
+        }
+        
+        public void cancel() {
+            synchronized (TimerWheel.this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                if (level >= 0) {
+                    unlink(this);
+                    size--;
+                }
+            }
+        }
+        
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        /**
+         * Get the tick the callback runs on
+         */
+        public long getTick() {
+            return expiry;
+        }
+    }
+    
+    /**
+     * Schedule a callback for an absolute tick; ticks already reached fire on the next advance
+     */
+    public synchronized Timer scheduleAt(long tick, Runnable callback) {
+        long expiry = Math.min(Math.max(tick, now + 1), now + MAX_DELAY);
+        Timer timer = new Timer(expiry, callback);
+        place(timer);
+        size++;
+        return timer;
+    }
+    
+    /**
+     * Schedule a callback a number of ticks from the current tick
+     */
+    public Timer schedule(long ticks, Runnable callback) {
+        synchronized (this) {
+            return scheduleAt(now + Math.max(1, ticks), callback);
+        }
+    }
+    
+    /**
+     * Advance to the next tick and run the callbacks due on it (on the calling thread)
+     * @return Tick reached
+     */
+    public long advance() {
+        Timer due;
+        long tick;
+        synchronized (this) {
+            tick = ++now;
+            int index = (int) (tick & MASK);
+            if (index == 0) {
+                cascade(1, tick);
+            }
+            due = heads[0][index];
+            heads[0][index] = null;
+            tails[0][index] = null;
+            for (Timer timer = due; timer != null; timer = timer.next) {
+                timer.level = -1;
+                size--;
+            }
+        }
+        
+        // Run outside the lock: callbacks may schedule or cancel timers
+        for (Timer timer = due; timer != null; ) {
+            Timer next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            if (!timer.cancelled) {
+                try {
+                    timer.callback.run();
+                } catch (Exception e) {
+                    System.err.println("TimerWheel: Error in timer callback: " + e.getMessage());
+                }
+            }
+            timer = next;
+        }
+        return tick;
+    }
+    
+    /**
+     * Advance until a tick is reached
+     */
+    public void advanceTo(long tick) {
+        while (getCurrentTick() < tick) {
+            advance();
+        }
+    }
+    
+    public synchronized long getCurrentTick() {
+        return now;
+    }
+    
+    /**
+     * Get number of pending timers
+     */
+    public synchronized int size() {
+        return size;
+    }
+    
+    /**
+     * Move the timers of the current slot of a level down to the levels below
+     */
+    private void cascade(int level, long tick) {
+        int index = (int) ((tick >>> (level * SLOT_BITS)) & MASK);
+        if (index == 0 && level + 1 < LEVELS) {
+            cascade(level + 1, tick);
+        }
+        Timer timer = heads[level][index];
+        heads[level][index] = null;
+        tails[level][index] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.prev = null;
+            timer.next = null;
+            place(timer);
+            timer = next;
+        }
+    }
+    
+    /**
+     * Link a timer into the slot for its remaining delay
+     */
+    private void place(Timer timer) {
+        long delay = timer.expiry - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= (1L << ((level + 1) * SLOT_BITS))) {
+            level++;
+        }
+        int index = (int) ((timer.expiry >>> (level * SLOT_BITS)) & MASK);
+        timer.level = level;
+        timer.slot = index;
+        timer.prev = tails[level][index];
+        if (timer.prev == null) {
+            heads[level][index] = timer;
+        } else {
+            timer.prev.next = timer;
+        }
+        tails[level][index] = timer;
+    }
+    
+    private void unlink(Timer timer) {
+        int level = timer.level;
+        int index = timer.slot;
+        if (timer.prev == null) {
+            heads[level][index] = timer.next;
+        } else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next == null) {
+            tails[level][index] = timer.prev;
+        } else {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.level = -1;
+    }
+}
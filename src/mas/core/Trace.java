@@ -0,0 +1,257 @@
+package mas.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Trace is the console tracing facade for agents. Messages have a level and a category
+ * and are given as suppliers, so nothing is built or printed unless the level is enabled
+ * for the agent type and category.
+ *
+ * Configured with -Dmas.trace, e.g. -Dmas.trace=INFO,client=DEBUG,MOVEMENT=OFF:
+ * a bare level is the default, "type=LEVEL" sets an agent type (client, waiter, ...),
+ * "CATEGORY=LEVEL" sets a category. When both the type and the category of a message are
+ * set, it has to pass both. -Dmas.trace.async=true prints from a background thread.
+ */
+public final class Trace {
+    
+    public enum Level {
+        OFF, ERROR, WARN, INFO, DEBUG
+    }
+    
+    public enum Category {
+        STATUS,     // Status changes
+        MOVEMENT,   // Paths and movement on the grid
+        MIGRATION,  // Moves between containers
+        MESSAGES,   // Messages sent and received
+        WORKFLOW,   // Orders, payments, tables
+        LIFECYCLE   // Agent start and end
+    }
+    
+    private static final int CATEGORY_COUNT = Category.values().length;
+    private static final int ASYNC_CAPACITY = 8192;
+    private static final Map<String, Tracer> tracers = new ConcurrentHashMap<>();
+    private static final Map<String, Level> typeLevels = new ConcurrentHashMap<>();
+    private static final Level[] categoryLevels = new Level[CATEGORY_COUNT];
+    private static volatile Level defaultLevel = Level.DEBUG;
+    
+    private static volatile BlockingQueue<String> asyncQueue;         // Set when the async appender runs
+    private static final AtomicLong droppedCount = new AtomicLong();
+    
+    static {
+        configure(System.getProperty("mas.trace", ""));
+        if (Boolean.getBoolean("mas.trace.async")) {
+            startAsyncAppender();
+        }
+    }
+    
+    private Trace() {
+    }
+    
+    /**
+     * Get the tracer of an agent type (e.g. "client"); tracers are shared and never change
+     */
+    public static Tracer forType(String type) {
+        return tracers.computeIfAbsent(type, Tracer::new);
+    }
+    
+    /**
+     * Apply a configuration like -Dmas.trace (entries not given keep their value)
+     */
+    public static synchronized void configure(String spec) {
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            try {
+                if (eq < 0) {
+                    defaultLevel = Level.valueOf(entry.toUpperCase());
+                    continue;
+                }
+                String name = entry.substring(0, eq).trim();
+                Level level = Level.valueOf(entry.substring(eq + 1).trim().toUpperCase());
+                Category category = categoryNamed(name);
+                if (category != null) {
+                    categoryLevels[category.ordinal()] = level;
+                } else {
+                    typeLevels.put(name.toLowerCase(), level);
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Trace: Invalid entry '" + entry + "' in trace configuration");
+            }
+        }
+        for (Tracer tracer : tracers.values()) {
+            tracer.update();
+        }
+    }
+    
+    /**
+     * Set the default level (e.g. OFF for a headless run), unless -Dmas.trace sets one
+     */
+    public static synchronized void setDefaultLevelUnlessConfigured(Level level) {
+        for (String entry : System.getProperty("mas.trace", "").split(",")) {
+            if (!entry.trim().isEmpty() && entry.indexOf('=') < 0) {
+                return;
+            }
+        }
+        defaultLevel = level;
+        for (Tracer tracer : tracers.values()) {
+            tracer.update();
+        }
+    }
+    
+    private static Category categoryNamed(String name) {
+        for (Category category : Category.values()) {
+            if (category.name().equals(name)) {
+                return category;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Print lines from a background thread; agent threads only queue the text.
+     * Lines are dropped (and counted) when the printer cannot keep up.
+     */
+    public static synchronized void startAsyncAppender() {
+        if (asyncQueue != null) {
+            return;
+        }
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(ASYNC_CAPACITY);
+        Thread printer = new Thread(() -> runAppender(queue), "TraceAppender");
+        printer.setDaemon(true);
+        printer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> printAll(queue, new ArrayList<>(), new StringBuilder())));
+        asyncQueue = queue;
+    }
+    
+    private static void runAppender(BlockingQueue<String> queue) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder text = new StringBuilder(64 * 1024);
+        while (true) {
+            try {
+                String line = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (line != null) {
+                    lines.add(line);
+                    printAll(queue, lines, text);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Print every queued line with one call, so System.out is locked once per batch
+     */
+    private static synchronized void printAll(BlockingQueue<String> queue, List<String> lines, StringBuilder text) {
+        queue.drainTo(lines);
+        if (lines.isEmpty()) {
+            return;
+        }
+        text.setLength(0);
+        for (String line : lines) {
+            text.append(line).append(System.lineSeparator());
+        }
+        lines.clear();
+        System.out.print(text);
+        System.out.flush();
+    }
+    
+    private static void print(Level level, Supplier<String> message) {
+        String line = "[" + level + "] " + message.get();
+        BlockingQueue<String> queue = asyncQueue;
+        if (queue == null) {
+            System.out.println(line);
+        } else if (!queue.offer(line)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Get number of lines dropped because the async appender was full
+     */
+    public static long getDroppedCount() {
+        return droppedCount.get();
+    }
+    
+    public static boolean isAsync() {
+        return asyncQueue != null;
+    }
+    
+    public static Level getDefaultLevel() {
+        return defaultLevel;
+    }
+    
+    /**
+     * Levels of one agent type, resolved per category when the configuration changes,
+     * so checking a level is a single array read
+     */
+    public static final class Tracer {
+        private final String type;
+        private volatile int[] thresholds;
+        
+        private Tracer(String type) {
+            this.type = type;
+            update();
+        }
+        
+        private void update() {
+            int[] resolved = new int[CATEGORY_COUNT];
+            Level typeLevel = typeLevels.get(type.toLowerCase());
+            for (int i = 0; i < CATEGORY_COUNT; i++) {
+                Level categoryLevel = categoryLevels[i];
+                Level level;
+                if (typeLevel == null && categoryLevel == null) {
+                    level = defaultLevel;
+                } else if (typeLevel == null) {
+                    level = categoryLevel;
+                } else if (categoryLevel == null) {
+                    level = typeLevel;
+                } else {
+                    level = typeLevel.ordinal() < categoryLevel.ordinal() ? typeLevel : categoryLevel;
+                }
+                resolved[i] = level.ordinal();
+            }
+            thresholds = resolved;
+        }
+        
+        public boolean isEnabled(Level level, Category category) {
+            return level.ordinal() <= thresholds[category.ordinal()];
+        }
+        
+        /**
+         * Print the message if the level is enabled for this type and category
+         */
+        public void log(Level level, Category category, Supplier<String> message) {
+            if (level.ordinal() <= thresholds[category.ordinal()]) {
+                print(level, message);
+            }
+        }
+        
+        public void debug(Category category, Supplier<String> message) {
+            log(Level.DEBUG, category, message);
+        }
+        
+        public void info(Category category, Supplier<String> message) {
+            log(Level.INFO, category, message);
+        }
+        
+        public void warn(Category category, Supplier<String> message) {
+            log(Level.WARN, category, message);
+        }
+        
+        public String getType() {
+            return type;
+        }
+    }
+}
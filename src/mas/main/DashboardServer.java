@@ -0,0 +1,733 @@
+package mas.main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import mas.core.AgentState;
+import mas.core.GridEnvironment;
+import mas.core.StateFrameEncoder;
+import mas.core.StatePublisher;
+import mas.core.TickSystem;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DashboardServer serves the web dashboard from the JVM instead of the Flask API.
+ * Agent states come straight from the StatePublisher batches and are pushed to the
+ * browsers over Server-Sent Events (GET /stream): a full snapshot on connect, then one
+ * delta event per batch. GET /frames streams the same updates as binary frames
+ * (StateFrameEncoder), which the dashboard prefers. The Flask routes the dashboard and DebugLogger use (/agents,
+ * /control, /add_client, /debug) are kept, so polling clients still work.
+ */
+public class DashboardServer implements StatePublisher.Listener {
+    private static final int MAX_DEBUG_MESSAGES = 500;
+    private static final String STATIC_DIR = "static";
+    private static final String CLIENT_REQUEST_FILE = "client_requests.txt";
+    private static final int STREAM_OUTBOX_SIZE = 256;  // Messages a stream may fall behind before it is closed
+    
+    /**
+     * Applies the control state set from the dashboard (runs on the DashboardControl thread)
+     */
+    public interface ControlListener {
+        void onControl(boolean initialized, boolean running, double speed);
+    }
+    
+    private final HttpServer server;
+    private final ControlListener controlListener;
+    private final ExecutorService controlExecutor;
+    private final Map<String, AgentState> agents = new ConcurrentHashMap<>();  // What the streams have been sent
+    private final List<StreamClient> clients = new CopyOnWriteArrayList<>();       // Event streams
+    private final List<StreamClient> frameClients = new CopyOnWriteArrayList<>();  // Binary frame streams
+    private final StateFrameEncoder frameEncoder = new StateFrameEncoder();
+    private final AtomicLong eventBytes = new AtomicLong();
+    private final AtomicLong frameBytes = new AtomicLong();
+    private final Deque<DebugEntry> debugMessages = new ArrayDeque<>();
+    // StatePublisher thread only
+    private final StringBuilder event = new StringBuilder(16 * 1024);
+    private final List<AgentState> changed = new ArrayList<>();
+    private final List<AgentState> previousStates = new ArrayList<>();
+    private final List<String> removedShown = new ArrayList<>();
+    
+    // Control state, same fields as the Flask sim_state
+    private boolean running = false;
+    private double speed = 1.0;
+    private boolean initialized = false;
+    private int clientCounter = 1;
+    
+    public DashboardServer(int port, ControlListener controlListener) throws IOException {
+        this.controlListener = controlListener;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/", this::handleStatic);
+        server.createContext("/stream", this::handleStream);
+        server.createContext("/frames", this::handleFrames);
+        server.createContext("/agents", this::handleAgents);
+        server.createContext("/control", this::handleControl);
+        server.createContext("/add_client", this::handleAddClient);
+        server.createContext("/debug", this::handleDebug);
+        // Streams keep their exchange open without holding a thread, a few threads are enough
+        server.setExecutor(Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "DashboardServer");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        // Initializing sends messages and waits, so controls are applied off the HTTP threads
+        controlExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DashboardControl");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public void start() {
+        StatePublisher.getInstance().addListener(this);
+        server.start();
+        System.out.println("DashboardServer: Listening on port " + server.getAddress().getPort());
+    }
+    
+    public void stop() {
+        server.stop(0);
+        controlExecutor.shutdownNow();
+    }
+    
+    public int getStreamCount() {
+        return clients.size() + frameClients.size();
+    }
+    
+    public int getFrameStreamCount() {
+        return frameClients.size();
+    }
+    
+    /**
+     * Get number of bytes written to event streams
+     */
+    public long getEventBytes() {
+        return eventBytes.get();
+    }
+    
+    /**
+     * Get number of bytes written to binary frame streams
+     */
+    public long getFrameBytes() {
+        return frameBytes.get();
+    }
+    
+    /**
+     * Push the agents of a batch to every stream, as a delta against what was sent before
+     */
+    @Override
+    public void onBatch(long tick, List<AgentState> states, List<String> removed) {
+        changed.clear();
+        previousStates.clear();
+        removedShown.clear();
+        for (AgentState state : states) {
+            AgentState previous = agents.put(state.getId(), state);
+            if (previous != null && previous.matches(state.getX(), state.getY(), state.getStatus(), state.getContainer())) {
+                continue; // Heartbeat, nothing to redraw
+            }
+            changed.add(state);
+            previousStates.add(previous);
+        }
+        for (String agentName : removed) {
+            if (agents.remove(agentName) != null) {
+                removedShown.add(agentName);
+            }
+        }
+        if (changed.isEmpty() && removedShown.isEmpty()) {
+            return;
+        }
+        if (!clients.isEmpty()) {
+            broadcast("agents", buildEventJson(tick));
+        }
+        if (!frameClients.isEmpty()) {
+            if (frameEncoder.isNearlyFull()) {
+                // Start the string tables over, every stream gets a new snapshot
+                frameEncoder.reset();
+                byte[] snapshot = frameEncoder.encodeSnapshot(tick, agents.values());
+                for (StreamClient client : frameClients) {
+                    client.write(snapshot);
+                }
+            } else {
+                byte[] frame = frameEncoder.encode(tick, changed, removedShown);
+                for (StreamClient client : frameClients) {
+                    client.write(frame);
+                }
+            }
+        }
+    }
+    
+    private String buildEventJson(long tick) {
+        event.setLength(0);
+        event.append("{\"tick\":").append(tick).append(",\"delta\":true,\"agents\":[");
+        for (int i = 0; i < changed.size(); i++) {
+            if (i > 0) {
+                event.append(',');
+            }
+            changed.get(i).appendJson(event, previousStates.get(i));
+        }
+        event.append("],\"removed\":[");
+        for (int i = 0; i < removedShown.size(); i++) {
+            if (i > 0) {
+                event.append(',');
+            }
+            appendString(event, removedShown.get(i));
+        }
+        return event.append("]}").toString();
+    }
+    
+    private void broadcast(String name, String data) {
+        for (StreamClient client : clients) {
+            if (client.agents || !name.equals("agents")) {
+                client.send(name, data);
+            }
+        }
+    }
+    
+    /**
+     * Event stream; ?agents=false leaves out agent states (for pages reading /frames)
+     */
+    private void handleStream(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/stream")) {
+            sendJson(exchange, 404, "{\"status\":\"not_found\"}");
+            return;
+        }
+        boolean withAgents = !"false".equals(parseQuery(exchange.getRequestURI().getRawQuery()).get("agents"));
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        StreamClient client = new StreamClient(exchange, clients, eventBytes, withAgents);
+        // Registered before the snapshot is built, so no batch falls in between
+        synchronized (client) {
+            clients.add(client);
+            client.send("control", controlJson());
+            if (withAgents) {
+                client.send("agents", snapshotJson());
+            }
+        }
+        client.start(); // The exchange stays open, written by the client's own thread
+    }
+    
+    /**
+     * Binary stream of length-prefixed StateFrameEncoder frames, starting with a snapshot
+     */
+    private void handleFrames(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        StreamClient client = new StreamClient(exchange, frameClients, frameBytes, true);
+        synchronized (client) {
+            frameClients.add(client);
+            client.write(frameEncoder.encodeSnapshot(TickSystem.getInstance().getCurrentTick(), agents.values()));
+        }
+        client.start();
+    }
+    
+    private void handleStatic(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/")) {
+            path = "/index.html";
+        } else if (path.startsWith("/static/")) {
+            path = path.substring("/static".length());
+        }
+        File root = new File(STATIC_DIR).getCanonicalFile();
+        File file = new File(root, path).getCanonicalFile();
+        if (!file.toPath().startsWith(root.toPath()) || !file.isFile()) {
+            sendJson(exchange, 404, "{\"status\":\"not_found\"}");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType(file.getName()));
+        send(exchange, 200, Files.readAllBytes(file.toPath()));
+    }
+    
+    private void handleAgents(HttpExchange exchange) throws IOException {
+        StringBuilder sb = new StringBuilder(agents.size() * 96 + 2);
+        appendAgents(sb);
+        sendJson(exchange, 200, sb.toString());
+    }
+    
+    private void handleControl(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            Map<String, String> data = parseObject(readBody(exchange));
+            synchronized (this) {
+                if (data.containsKey("running")) {
+                    running = Boolean.parseBoolean(data.get("running"));
+                }
+                if (data.containsKey("speed")) {
+                    try {
+                        speed = Double.parseDouble(data.get("speed"));
+                    } catch (NumberFormatException e) {
+                        // Keep the current speed
+                    }
+                }
+                if (data.containsKey("initialized")) {
+                    initialized = Boolean.parseBoolean(data.get("initialized"));
+                }
+            }
+            String state = controlJson();
+            broadcast("control", state);
+            controlExecutor.execute(this::applyControl);
+            sendJson(exchange, 200, state);
+            return;
+        }
+        sendJson(exchange, 200, controlJson());
+    }
+    
+    private void applyControl() {
+        boolean initialized;
+        boolean running;
+        double speed;
+        synchronized (this) {
+            initialized = this.initialized;
+            running = this.running;
+            speed = this.speed;
+        }
+        try {
+            controlListener.onControl(initialized, running, speed);
+        } catch (Exception e) {
+            System.err.println("DashboardServer: Error applying control: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Request a new client the same way the Flask API does, through the file the
+     * AgentFactoryAgent polls
+     */
+    private void handleAddClient(HttpExchange exchange) throws IOException {
+        String clientName;
+        synchronized (this) {
+            clientName = "Client" + clientCounter++;
+        }
+        try (PrintWriter writer = new PrintWriter(new FileWriter(CLIENT_REQUEST_FILE, true))) {
+            writer.println(clientName);
+        } catch (IOException e) {
+            StringBuilder sb = new StringBuilder("{\"status\":\"error\",\"message\":");
+            appendString(sb, e.getMessage());
+            sendJson(exchange, 500, sb.append('}').toString());
+            return;
+        }
+        sendJson(exchange, 200, "{\"status\":\"success\",\"client_name\":\"" + clientName +
+            "\",\"message\":\"Client creation requested: " + clientName + "\"}");
+    }
+    
+    private void handleDebug(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        boolean post = "POST".equals(exchange.getRequestMethod());
+        if (path.equals("/debug/batch") && post) {
+            addDebugMessages(exchange);
+        } else if (path.equals("/debug/clear") && post) {
+            synchronized (debugMessages) {
+                debugMessages.clear();
+            }
+            sendJson(exchange, 200, "{\"status\":\"success\"}");
+        } else if (!path.equals("/debug")) {
+            sendJson(exchange, 404, "{\"status\":\"not_found\"}");
+        } else if (post) {
+            addDebugMessage(exchange);
+        } else {
+            getDebugMessages(exchange);
+        }
+    }
+    
+    private void addDebugMessage(HttpExchange exchange) throws IOException {
+        if (!storeDebugMessage(parseObject(readBody(exchange)))) {
+            sendJson(exchange, 400, "{\"status\":\"error\",\"message\":\"Missing required fields\"}");
+            return;
+        }
+        sendJson(exchange, 200, "{\"status\":\"success\"}");
+    }
+    
+    /**
+     * Store the messages of a DebugLogger batch: {"messages": [...]}
+     */
+    private void addDebugMessages(HttpExchange exchange) throws IOException {
+        String messages = parseObject(readBody(exchange)).get("messages");
+        int added = 0;
+        for (String message : parseArray(messages != null ? messages : "[]")) {
+            if (storeDebugMessage(parseObject(message))) {
+                added++;
+            }
+        }
+        sendJson(exchange, 200, "{\"status\":\"success\",\"added\":" + added + "}");
+    }
+    
+    /**
+     * Store a message like the Flask /debug route does
+     * @return false if agent_id or message is missing
+     */
+    private boolean storeDebugMessage(Map<String, String> data) {
+        if (!data.containsKey("agent_id") || !data.containsKey("message")) {
+            return false;
+        }
+        DebugEntry entry = new DebugEntry(data.get("agent_id"), data.getOrDefault("level", "INFO"));
+        StringBuilder sb = new StringBuilder(256);
+        // Batched messages carry the time they were logged
+        sb.append("{\"timestamp\":").append(data.getOrDefault("timestamp", String.valueOf(System.currentTimeMillis() / 1000.0)));
+        sb.append(",\"agent_id\":");
+        appendString(sb, entry.agentId);
+        sb.append(",\"agent_type\":");
+        appendString(sb, data.getOrDefault("agent_type", "unknown"));
+        sb.append(",\"message\":");
+        appendString(sb, data.get("message"));
+        sb.append(",\"level\":");
+        appendString(sb, entry.level);
+        sb.append(",\"container\":");
+        appendString(sb, data.getOrDefault("container", "unknown"));
+        sb.append(",\"status\":");
+        appendString(sb, data.getOrDefault("status", ""));
+        sb.append(",\"details\":").append(data.getOrDefault("details", "{}")).append('}');
+        entry.json = sb.toString();
+        synchronized (debugMessages) {
+            debugMessages.addLast(entry);
+            if (debugMessages.size() > MAX_DEBUG_MESSAGES) {
+                debugMessages.removeFirst();
+            }
+        }
+        return true;
+    }
+    
+    private void getDebugMessages(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String agentFilter = query.get("agent_id");
+        String levelFilter = query.get("level");
+        int limit = 100;
+        try {
+            limit = Integer.parseInt(query.getOrDefault("limit", "100"));
+        } catch (NumberFormatException e) {
+            // Keep the default
+        }
+        List<String> matching = new ArrayList<>();
+        synchronized (debugMessages) {
+            for (DebugEntry entry : debugMessages) {
+                if ((agentFilter == null || agentFilter.equals(entry.agentId)) &&
+                    (levelFilter == null || levelFilter.equals(entry.level))) {
+                    matching.add(entry.json);
+                }
+            }
+        }
+        // Most recent messages, oldest first
+        List<String> recent = matching.subList(Math.max(0, matching.size() - Math.max(0, limit)), matching.size());
+        sendJson(exchange, 200, "[" + String.join(",", recent) + "]");
+    }
+    
+    private synchronized String controlJson() {
+        return "{\"running\":" + running + ",\"speed\":" + speed + ",\"initialized\":" + initialized +
+            ",\"grid_width\":" + GridEnvironment.GRID_WIDTH + ",\"grid_height\":" + GridEnvironment.GRID_HEIGHT + "}";
+    }
+    
+    private String snapshotJson() {
+        StringBuilder sb = new StringBuilder(agents.size() * 96 + 64);
+        sb.append("{\"delta\":false,\"agents\":");
+        appendAgents(sb);
+        return sb.append(",\"removed\":[]}").toString();
+    }
+    
+    private void appendAgents(StringBuilder sb) {
+        sb.append('[');
+        boolean first = true;
+        for (AgentState state : agents.values()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            state.appendJson(sb, null);
+        }
+        sb.append(']');
+    }
+    
+    private static String contentType(String fileName) {
+        if (fileName.endsWith(".html")) {
+            return "text/html; charset=utf-8";
+        } else if (fileName.endsWith(".js")) {
+            return "application/javascript";
+        } else if (fileName.endsWith(".css")) {
+            return "text/css";
+        } else if (fileName.endsWith(".png")) {
+            return "image/png";
+        } else if (fileName.endsWith(".svg")) {
+            return "image/svg+xml";
+        } else if (fileName.endsWith(".json")) {
+            return "application/json";
+        }
+        return "application/octet-stream";
+    }
+    
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    private static void sendJson(HttpExchange exchange, int code, String json) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, code, json.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static void send(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(code, body.length == 0 ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+    
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+    
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> values = new HashMap<>();
+        if (query == null) {
+            return values;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Parse the top level of a JSON object: strings are unescaped, other values
+     * (numbers, booleans, nested objects) are kept as their JSON text
+     */
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> values = new HashMap<>();
+        int[] pos = {json.indexOf('{') + 1};
+        if (pos[0] == 0) {
+            return values;
+        }
+        while (true) {
+            skipSpaces(json, pos);
+            if (pos[0] >= json.length() || json.charAt(pos[0]) != '"') {
+                return values;
+            }
+            String key = parseString(json, pos);
+            skipSpaces(json, pos);
+            if (pos[0] >= json.length() || json.charAt(pos[0]) != ':') {
+                return values;
+            }
+            pos[0]++;
+            skipSpaces(json, pos);
+            if (pos[0] >= json.length()) {
+                return values;
+            }
+            if (json.charAt(pos[0]) == '"') {
+                values.put(key, parseString(json, pos));
+            } else {
+                int start = pos[0];
+                skipValue(json, pos);
+                values.put(key, json.substring(start, pos[0]).trim());
+            }
+            skipSpaces(json, pos);
+            if (pos[0] >= json.length() || json.charAt(pos[0]) != ',') {
+                return values;
+            }
+            pos[0]++;
+        }
+    }
+    
+    /**
+     * Split a JSON array into the JSON text of its elements
+     */
+    static List<String> parseArray(String json) {
+        List<String> elements = new ArrayList<>();
+        int[] pos = {json.indexOf('[') + 1};
+        if (pos[0] == 0) {
+            return elements;
+        }
+        while (true) {
+            skipSpaces(json, pos);
+            if (pos[0] >= json.length() || json.charAt(pos[0]) == ']') {
+                return elements;
+            }
+            int start = pos[0];
+            skipValue(json, pos);
+            elements.add(json.substring(start, pos[0]).trim());
+            if (pos[0] >= json.length() || json.charAt(pos[0]) != ',') {
+                return elements;
+            }
+            pos[0]++;
+        }
+    }
+    
+    private static void skipSpaces(String json, int[] pos) {
+        while (pos[0] < json.length() && Character.isWhitespace(json.charAt(pos[0]))) {
+            pos[0]++;
+        }
+    }
+    
+    private static String parseString(String json, int[] pos) {
+        StringBuilder sb = new StringBuilder();
+        int i = pos[0] + 1;
+        while (i < json.length() && json.charAt(i) != '"') {
+            char c = json.charAt(i++);
+            if (c == '\\' && i < json.length()) {
+                char escaped = json.charAt(i++);
+                switch (escaped) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (i + 4 <= json.length()) {
+                            sb.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                            i += 4;
+                        }
+                        break;
+                    default: sb.append(escaped);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        pos[0] = i + 1;
+        return sb.toString();
+    }
+    
+    /**
+     * Skip a number, literal, object or array (strings inside are skipped whole)
+     */
+    private static void skipValue(String json, int[] pos) {
+        int depth = 0;
+        while (pos[0] < json.length()) {
+            char c = json.charAt(pos[0]);
+            if (c == '"') {
+                parseString(json, pos);
+                continue;
+            }
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                if (depth == 0) {
+                    return;
+                }
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                return;
+            }
+            pos[0]++;
+        }
+    }
+    
+    private static class DebugEntry {
+        final String agentId;
+        final String level;
+        String json;
+        
+        DebugEntry(String agentId, String level) {
+            this.agentId = agentId;
+            this.level = level;
+        }
+    }
+    
+    /**
+     * An open stream. Messages are queued in a bounded outbox and written by the client's own
+     * thread, so a slow or stalled browser never holds up the publisher. A client that fails
+     * to receive, or falls STREAM_OUTBOX_SIZE messages behind, is closed; the dashboard
+     * reconnects and starts over from a snapshot.
+     */
+    private static class StreamClient {
+        private final HttpExchange exchange;
+        private final OutputStream out;
+        private final List<StreamClient> owner;
+        private final AtomicLong byteCount;
+        private final BlockingQueue<byte[]> outbox = new ArrayBlockingQueue<>(STREAM_OUTBOX_SIZE);
+        private final Thread writer;
+        final boolean agents;
+        private volatile boolean closed = false;
+        
+        StreamClient(HttpExchange exchange, List<StreamClient> owner, AtomicLong byteCount, boolean agents) {
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+            this.owner = owner;
+            this.byteCount = byteCount;
+            this.agents = agents;
+            writer = new Thread(this::runWriter, "DashboardStream");
+            writer.setDaemon(true);
+        }
+        
+        void start() {
+            writer.start();
+        }
+        
+        void send(String name, String data) {
+            write(("event: " + name + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        }
+        
+        /**
+         * Queue data for the writer thread; never blocks
+         */
+        synchronized void write(byte[] data) {
+            if (closed) {
+                return;
+            }
+            if (!outbox.offer(data)) {
+                System.out.println("DashboardServer: Closing a stream that fell " + STREAM_OUTBOX_SIZE + " messages behind");
+                close();
+            }
+        }
+        
+        private void runWriter() {
+            List<byte[]> pending = new ArrayList<>();
+            try {
+                while (!closed) {
+                    pending.add(outbox.take());
+                    outbox.drainTo(pending);
+                    long written = 0;
+                    for (byte[] data : pending) {
+                        out.write(data);
+                        written += data.length;
+                    }
+                    out.flush(); // Once per wakeup, however many messages were queued
+                    byteCount.addAndGet(written);
+                    pending.clear();
+                }
+            } catch (IOException | InterruptedException e) {
+                close();
+            } finally {
+                exchange.close(); // On this thread: closing may block on a stalled socket
+            }
+        }
+        
+        private void close() {
+            closed = true;
+            owner.remove(this);
+            outbox.clear();
+            writer.interrupt();
+        }
+    }
+}
@@ -10,7 +10,14 @@ import jade.wrapper.StaleProxyException;
 import jade.lang.acl.ACLMessage;
 import mas.agents.AgentFactoryAgent;
 import mas.agents.HelperAgent;
+import mas.core.BaseAgent;
+import mas.core.DebugLogger;
+import mas.core.DeterministicRun;
+import mas.core.PathCache;
+import mas.core.PathPlanningService;
+import mas.core.StatePublisher;
 import mas.core.TickSystem;
+import mas.core.Trace;
 import java.util.Scanner;
 import java.io.File;
 import java.io.IOException;
@@ -27,9 +34,39 @@ public class Main {
     private static Process flaskProcess;
     private static final String API_SCRIPT = "api/app.py";
     private static boolean systemInitialized = false;
-    private static final String CONTROL_URL = "http://localhost:5001/control";
+    private static final String CONTROL_URL = BaseAgent.API_BASE_URL + "/control";
+    private static final int DASHBOARD_PORT = BaseAgent.API_PORT; // -Dmas.dashboard.port
+    // "embedded" (default) serves the dashboard from this JVM, "flask" starts api/app.py instead
+    private static final boolean FLASK_DASHBOARD = "flask".equalsIgnoreCase(System.getProperty("mas.dashboard"));
+    private static DashboardServer dashboardServer;
     
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            double hours = 8.0;
+            int next = 1;
+            if (args.length > 1 && !args[1].startsWith("--")) {
+                try {
+                    hours = Double.parseDouble(args[1]);
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid number of hours, using default 8");
+                }
+                next = 2;
+            }
+            // Deterministic run: --seed <n> records a journal, --replay <journal> repeats a recorded run
+            try {
+                if (args.length > next + 1 && args[next].equals("--seed")) {
+                    DeterministicRun.getInstance().enable(Long.parseLong(args[next + 1]));
+                } else if (args.length > next + 1 && args[next].equals("--replay")) {
+                    DeterministicRun.getInstance().replay(args[next + 1]);
+                }
+            } catch (Exception e) {
+                System.err.println("Cannot start deterministic run: " + e.getMessage());
+                return;
+            }
+            runHeadless(hours);
+            return;
+        }
+        
         scanner = new Scanner(System.in);
         
         // Get the JADE runtime instance
@@ -45,8 +82,12 @@ public class Main {
         // Create the main container
         mainContainer = runtime.createMainContainer(profile);
         
-        // Start Flask API
-        startFlaskAPI();
+        // Start the dashboard server (or the Flask API)
+        if (FLASK_DASHBOARD) {
+            startFlaskAPI();
+        } else {
+            startDashboardServer();
+        }
         
         try {
             // Create and start the AgentFactoryAgent (Father Agent)
@@ -67,11 +108,13 @@ public class Main {
             // Wait a bit for AgentFactoryAgent to be ready
             Thread.sleep(2000);
             
-            // Start Web Control Polling Thread
-            new Thread(new WebControlThread()).start();
+            // The embedded server applies web controls itself, Flask has to be polled
+            if (FLASK_DASHBOARD) {
+                new Thread(new WebControlThread()).start();
+            }
             
             System.out.println("WAITING FOR WEB GUI CONTROL...");
-            System.out.println("Open http://localhost:5001 in your browser to start the simulation.");
+            System.out.println("Open http://localhost:" + DASHBOARD_PORT + " in your browser to start the simulation.");
             System.out.println("==========================================\n");
             
             // Initialize tick system but don't start it yet
@@ -91,7 +134,68 @@ public class Main {
                 tickSystem.stop();
             }
             stopFlaskAPI();
+            if (dashboardServer != null) {
+                dashboardServer.stop();
+            }
+        }
+    }
+    
+    /**
+     * Run a simulation without GUI, API or menu in virtual time and exit
+     * (usage: --headless [simulated hours])
+     */
+    private static void runHeadless(double hours) {
+        Runtime runtime = Runtime.instance();
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.MAIN_HOST, "localhost");
+        profile.setParameter(Profile.MAIN_PORT, "1099");
+        profile.setParameter(Profile.GUI, "false");
+        mainContainer = runtime.createMainContainer(profile);
+        StatePublisher.getInstance().setApiEnabled(false); // Nobody watches a headless run
+        if (!DebugLogger.isWritingToFile()) {
+            DebugLogger.setEnabled(false); // No dashboard to post to, only -Dmas.debug.file keeps them
+        }
+        Trace.setDefaultLevelUnlessConfigured(Trace.Level.WARN);
+        
+        try {
+            mainContainer.createNewAgent("AgentFactory", AgentFactoryAgent.class.getName(), null).start();
+            Thread.sleep(2000);
+            handleInitializeSystem();
+            Thread.sleep(3000); // Let the default agents start before the first tick
+            
+            tickSystem = TickSystem.getInstance();
+            long ticks = Math.round(hours * 3600_000 / tickSystem.getBaseTickInterval());
+            System.out.println("==========================================");
+            System.out.println("HEADLESS RUN: " + hours + " simulated hours (" + ticks + " ticks)");
+            if (DeterministicRun.getInstance().isEnabled()) {
+                System.out.println("Deterministic: seed " + DeterministicRun.getInstance().getSeed() +
+                    (DeterministicRun.getInstance().isReplaying() ? " (replay)" : ""));
+            }
+            System.out.println("==========================================");
+            
+            long start = System.nanoTime();
+            tickSystem.setVirtualTime(true);
+            tickSystem.stopAt(ticks);
+            tickSystem.start();
+            simulationRunning = true;
+            while (tickSystem.isRunning()) {
+                Thread.sleep(1000);
+                System.out.println("[HEADLESS] Tick " + tickSystem.getCurrentTick() + " / " + ticks + " (" +
+                    String.format("%.2f", tickSystem.getSimulatedSeconds() / 3600) + " simulated hours)");
+            }
+            simulationRunning = false;
+            
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println("[HEADLESS] Simulated " + String.format("%.2f", tickSystem.getSimulatedSeconds() / 3600) +
+                " hours in " + String.format("%.1f", seconds) + " s (" +
+                String.format("%.0f", tickSystem.getSimulatedSeconds() / seconds) + "x real time, " +
+                tickSystem.getQuiescenceTimeouts() + " ticks timed out waiting for agents)");
+            showSystemStatus();
+        } catch (Exception e) {
+            System.err.println("Error in headless run: " + e.getMessage());
+            e.printStackTrace();
         }
+        System.exit(0);
     }
     
     /**
@@ -107,6 +211,7 @@ public class Main {
                 ProcessBuilder pb = new ProcessBuilder(cmd, API_SCRIPT);
                 pb.directory(new File(System.getProperty("user.dir")));
                 pb.inheritIO();
+                pb.environment().put("PORT", String.valueOf(DASHBOARD_PORT)); // app.py listens on $PORT
                 flaskProcess = pb.start();
                 System.out.println("Flask API Process started successfully using: " + cmd);
                 started = true;
@@ -123,7 +228,7 @@ public class Main {
                 
                 // Clear API data
                 try {
-                    java.net.URL url = new java.net.URL("http://localhost:5001/clear");
+                    java.net.URL url = new java.net.URL(BaseAgent.API_BASE_URL + "/clear");
                     java.net.HttpURLConnection conn = (java.net.HttpURLConnection) url.openConnection();
                     conn.setRequestMethod("POST");
                     conn.setConnectTimeout(1000);
@@ -164,6 +269,20 @@ public class Main {
         }
     }
     
+    /**
+     * Start the embedded dashboard server; agent states then go to it directly
+     * instead of to the Flask API
+     */
+    private static void startDashboardServer() {
+        StatePublisher.getInstance().setApiEnabled(false);
+        try {
+            dashboardServer = new DashboardServer(DASHBOARD_PORT, Main::applyWebControl);
+            dashboardServer.start();
+        } catch (IOException e) {
+            System.err.println("CRITICAL ERROR: Could not start dashboard server on port " + DASHBOARD_PORT + ": " + e.getMessage());
+        }
+    }
+    
     /**
      * Stop the Flask API Python process
      */
@@ -319,28 +438,7 @@ public class Main {
                             }
                         } catch (Exception e) {}
 
-                        // Logic: Initialize system if requested via web and not yet done
-                        if (webInitialized && !systemInitialized) {
-                            System.out.println("[WEB CONTROL] Initializing system...");
-                            handleInitializeSystem();
-                            systemInitialized = true;
-                        }
-
-                        // Logic: Start/Stop simulation
-                        if (systemInitialized) {
-                            if (webRunning && !simulationRunning) {
-                                System.out.println("[WEB CONTROL] Starting simulation...");
-                                handleStartSimulationFromWeb(webSpeed);
-                            } else if (!webRunning && simulationRunning) {
-                                System.out.println("[WEB CONTROL] Pausing simulation...");
-                                handleStopSimulation();
-                            }
-                            
-                            // Update speed if changed
-                            if (simulationRunning && tickSystem != null && Math.abs(tickSystem.getSpeedFactor() - webSpeed) > 0.01) {
-                                tickSystem.setSpeedFactor(webSpeed);
-                            }
-                        }
+                        applyWebControl(webInitialized, webRunning, webSpeed);
                     }
                     conn.disconnect();
                 } catch (Exception e) {
@@ -350,6 +448,34 @@ public class Main {
         }
     }
     
+    /**
+     * Bring the simulation to the state set in the web dashboard
+     */
+    private static void applyWebControl(boolean webInitialized, boolean webRunning, double webSpeed) {
+        // Logic: Initialize system if requested via web and not yet done
+        if (webInitialized && !systemInitialized) {
+            System.out.println("[WEB CONTROL] Initializing system...");
+            handleInitializeSystem();
+            systemInitialized = true;
+        }
+        
+        // Logic: Start/Stop simulation
+        if (systemInitialized) {
+            if (webRunning && !simulationRunning) {
+                System.out.println("[WEB CONTROL] Starting simulation...");
+                handleStartSimulationFromWeb(webSpeed);
+            } else if (!webRunning && simulationRunning) {
+                System.out.println("[WEB CONTROL] Pausing simulation...");
+                handleStopSimulation();
+            }
+            
+            // Update speed if changed
+            if (simulationRunning && tickSystem != null && Math.abs(tickSystem.getSpeedFactor() - webSpeed) > 0.01) {
+                tickSystem.setSpeedFactor(webSpeed);
+            }
+        }
+    }
+    
     private static void handleStartSimulationFromWeb(double speed) {
         if (tickSystem != null) {
             tickSystem.setSpeedFactor(speed);
@@ -542,7 +668,38 @@ public class Main {
         if (tickSystem != null) {
             System.out.println("Speed Factor: " + tickSystem.getSpeedFactor() + "x");
             System.out.println("Tick Interval: " + tickSystem.getTickInterval() + "ms");
+            System.out.println("Tick Timing: last tick " + String.format("%.2f", tickSystem.getLastTickMillis()) + " ms, lag " +
+                String.format("%.2f", tickSystem.getLagMillis()) + " ms (max " + String.format("%.2f", tickSystem.getMaxLagMillis()) +
+                "), load " + String.format("%.0f", tickSystem.getLoad() * 100) + "%" + (tickSystem.isSaturated() ? " SATURATED" : "") +
+                ", " + tickSystem.getOverrunCount() + " overruns, " + tickSystem.getSkippedTicks() + " skipped, drift " +
+                String.format("%.0f", tickSystem.getDriftMillis()) + " ms (catch-up: " + tickSystem.getCatchUpPolicy() + ")");
+            System.out.println("Tick Dispatch: " + tickSystem.getShardCount() + " shards on " + tickSystem.getDispatchThreads() + " threads" +
+                (tickSystem.isDeterministic() ? " (deterministic, seed " + DeterministicRun.getInstance().getSeed() + ", serial)" : ""));
+            if (tickSystem.isVirtualTime()) {
+                System.out.println("Virtual Time: " + String.format("%.1f", tickSystem.getSimulatedSeconds()) + " s simulated, " +
+                    tickSystem.getQuiescenceTimeouts() + " ticks timed out waiting for agents");
+            }
+        }
+        StatePublisher publisher = StatePublisher.getInstance();
+        System.out.println("State Publisher: " + publisher.getSentCount() + " states in " + publisher.getBatchCount() + " batches (last " +
+            publisher.getLastBatchSize() + ", " + (publisher.isDeltaMode() ? "delta" : "full") + "), " + publisher.getCoalescedCount() + " coalesced, " +
+            publisher.getDroppedCount() + " dropped, " + publisher.getFailedCount() + " failed, " + publisher.getPendingCount() + " pending");
+        System.out.println("Trace: default level " + Trace.getDefaultLevel() + (Trace.isAsync() ? ", async (" + Trace.getDroppedCount() + " dropped)" : ""));
+        System.out.println("Debug Logger: " + DebugLogger.getLoggedCount() + " logged, " + DebugLogger.getSentCount() + " sent in " +
+            DebugLogger.getBatchCount() + " batches, " + DebugLogger.getDroppedCount() + " dropped (buffer full), " +
+            DebugLogger.getRateLimitedCount() + " rate limited, " + DebugLogger.getSampledOutCount() + " sampled out, " +
+            DebugLogger.getFailedCount() + " failed, " + DebugLogger.getPendingCount() + " pending");
+        if (dashboardServer != null) {
+            System.out.println("Dashboard: " + dashboardServer.getStreamCount() + " open streams (" + dashboardServer.getFrameStreamCount() +
+                " binary), " + dashboardServer.getEventBytes() + " bytes of events, " + dashboardServer.getFrameBytes() + " bytes of frames");
         }
+        PathCache pathCache = PathCache.getInstance();
+        System.out.println("Path Cache: " + pathCache.size() + " paths, " + pathCache.getHits() + " hits / " +
+            pathCache.getMisses() + " misses (" + String.format("%.1f", pathCache.getHitRate() * 100) + "% hit rate)");
+        PathPlanningService planner = PathPlanningService.getInstance();
+        System.out.println("Path Planning: " + planner.getRequestCount() + " requests in " + planner.getBatchCount() +
+            " batches on " + planner.getParallelism() + " threads (largest batch " + planner.getLargestBatch() +
+            ", last batch " + String.format("%.2f", planner.getLastBatchMillis()) + " ms)");
         System.out.println("\nNote: Check JADE GUI for detailed agent and container information.");
         System.out.println("Use the menu options to create additional agents and containers.");
         if (!simulationRunning) {